@@ -0,0 +1,89 @@
+package hal.bench;
+
+import hal.interpreter.Reference;
+import hal.interpreter.core.Arguments;
+import hal.interpreter.core.Params;
+import hal.interpreter.core.ReferenceRecord;
+import hal.interpreter.types.HalKernel;
+import hal.interpreter.types.HalObject;
+import hal.interpreter.types.enumerable.HalArray;
+import hal.interpreter.types.enumerable.HalString;
+import hal.interpreter.types.numeric.HalInteger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmarks of the operations performed by the interpreter
+ * on every variable access and call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CoreBenchmark
+{
+    private ReferenceRecord global;
+    private ReferenceRecord local;
+    private Params params;
+    private HalObject left;
+    private HalObject right;
+    private HalObject array;
+
+    @Setup
+    public void setup() {
+        HalKernel.init();
+
+        global = new ReferenceRecord(null);
+        global.defineVariable("global", new HalString("global"));
+
+        ReferenceRecord middle = new ReferenceRecord(global);
+        middle.defineVariable("middle", new HalString("middle"));
+
+        local = new ReferenceRecord(middle);
+        local.defineVariable("local", new HalString("local"));
+
+        params = new Params(
+                new Params.Param("a"),
+                new Params.Param("b"),
+                new Params.Keyword("c", HalInteger.valueOf(0)));
+
+        left = HalInteger.valueOf(100000);
+        right = HalInteger.valueOf(200000);
+
+        array = new HalArray();
+        array.methodcall("__append!__", left);
+    }
+
+    @Benchmark
+    public Reference recordLocalLookup() {
+        return local.getUnsafeReference("local");
+    }
+
+    @Benchmark
+    public Reference recordParentLookup() {
+        return local.getUnsafeReference("global");
+    }
+
+    @Benchmark
+    public Reference recordMissingLookup() {
+        return local.getUnsafeReference("missing");
+    }
+
+    @Benchmark
+    public Arguments paramsFill() {
+        return params.fill(new Arguments(left, right));
+    }
+
+    @Benchmark
+    public HalObject methodcallOperator() {
+        return left.methodcall("__add__", right);
+    }
+
+    @Benchmark
+    public HalObject methodcallInherited() {
+        return array.methodcall("size");
+    }
+}
@@ -0,0 +1,73 @@
+package hal.bench;
+
+import hal.interpreter.Interpreter;
+import hal.interpreter.Parser;
+import hal.interpreter.types.HalModule;
+import hal.interpreter.types.HalObject;
+import org.antlr.runtime.ANTLRStringStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs complete HAL programs through the interpreter. Every invocation
+ * parses and executes the program, like a run of the hal command.
+ * The root of the repository is given by the hal.root property.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProgramBenchmark
+{
+    @Param({"fib", "quicksort", "wordcount", "strings", "range", "haltex"})
+    public String program;
+
+    private Interpreter interpreter;
+    private String source;
+    private PrintStream stdout;
+
+    private static File programFile(File root, String program) {
+        if(program.equals("quicksort"))
+            return new File(root, "doc/examples/quicksort.hal");
+
+        if(program.equals("haltex"))
+            return new File(root, "doc/examples/haltex/document.hal");
+
+        return new File(root, "bench/programs/" + program + ".hal");
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        File root = new File(System.getProperty("hal.root", "."));
+        File file = programFile(root, program);
+        source = new String(Files.readAllBytes(file.toPath()), "UTF-8");
+
+        HalModule module = new HalModule(program, null, file.getPath());
+        interpreter = new Interpreter(new Parser(null, false), module, null);
+
+        // The output of the programs is not part of the measure
+        stdout = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            public void write(int b) { }
+            public void write(byte[] b, int off, int len) { }
+        }));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public HalObject run() {
+        return interpreter.run(new ANTLRStringStream(source));
+    }
+}
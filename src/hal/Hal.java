@@ -2,14 +2,14 @@ package hal;
 
 // Imports for ANTLR
 
+import hal.interpreter.ASTCache;
 import hal.interpreter.Interpreter;
+import hal.interpreter.Output;
 import hal.interpreter.Parser;
+import hal.interpreter.Profiler;
 import hal.interpreter.types.HalModule;
 import hal.interpreter.types.HalObject;
 import jline.console.ConsoleReader;
-import org.antlr.runtime.ANTLRFileStream;
-import org.antlr.runtime.ANTLRStringStream;
-import org.antlr.runtime.CharStream;
 import org.apache.commons.cli.*;
 
 import java.io.File;
@@ -33,7 +33,8 @@ public class Hal
     public static final String VERSION = "0.0.3@$GIT";
     public static final String DATE = "$DATE";
 
-    public static Interpreter INTERPRETER = null;
+    /** The interpreter of the program. */
+    private static Interpreter interpreter = null;
     /** The file name of the program. */
     private static String infile = null;
     private static File astfile = null;
@@ -41,10 +42,16 @@ public class Hal
     private static boolean dotformat = false;
     /** Name of the file storing the trace of the program. */
     private static PrintWriter tracefile = null;
+    /** File storing the profile of the program. */
+    private static File profilefile = null;
     /** Flag to indicate whether the program must be executed after parsing. */
     private static boolean execute = true;
     /** Flag to indicate whether the interpreter works in interactive mode. */
     private static boolean interactive = false;
+    /** Flag to indicate whether the parsed source files are cached on disk. */
+    private static boolean cache = true;
+    /** Size of the buffer of the standard output, in bytes. */
+    private static int outputBuffer = Output.DEFAULT_SIZE;
       
     /** Main program that invokes the parser and the interpreter. */
     
@@ -54,7 +61,12 @@ public class Hal
             if (!readOptions (args))
                 System.exit(1);
 
+            Output.init(outputBuffer, interactive);
+
             Parser parser = new Parser(astfile, dotformat);
+
+            if(cache)
+                parser.setCache(new ASTCache(ASTCache.defaultDirectory()));
             HalModule mainModule;
 
             if(interactive)
@@ -62,18 +74,39 @@ public class Hal
             else
                 mainModule = new HalModule(infile, null, infile);
 
-            INTERPRETER = new Interpreter(parser, mainModule, tracefile);
+            interpreter = new Interpreter(parser, mainModule, tracefile);
+            interpreter.bind();
+
+            if(profilefile != null)
+                startProfiler();
 
             if(interactive)
                 interactiveMode();
             else
                 fileMode();
         } catch (IOException e) {
+            Output.flush();
             System.err.println ("Error: " + e.getMessage());
             System.exit(1);
         }
     }
 
+    private static void startProfiler() {
+        final Profiler profiler = new Profiler();
+        interpreter.setProfiler(profiler);
+
+        // The program can finish with System.exit
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            public void run() {
+                try {
+                    profiler.write(profilefile);
+                } catch (IOException e) {
+                    System.err.println("Error: " + e.getMessage());
+                }
+            }
+        });
+    }
+
     private static void interactiveMode() throws IOException {
         System.out.println("Hal " + VERSION + " (" + DATE + ") [java "
                 + System.getProperty("java.version") + "]");
@@ -82,6 +115,7 @@ public class Hal
         console.setExpandEvents(false);
         String input;
         while(true) {
+            Output.flush();
             console.setPrompt(">>> ");
             input = console.readLine();
 
@@ -110,7 +144,7 @@ public class Hal
                 break;
 
             try {
-                HalObject d = evaluate(new ANTLRStringStream(input));
+                HalObject d = evaluate(input);
 
                 if (d != null)
                     System.out.println(" => " + d.methodcall("__repr__"));
@@ -121,23 +155,36 @@ public class Hal
     }
 
     private static void fileMode() throws IOException {
-        CharStream input;
-
         try {
-            input = new ANTLRFileStream(infile);
-            evaluate(input);
+            evaluate(new File(infile));
         } catch(RuntimeException e) {
+            Output.flush();
             System.err.println(e.getMessage());
             System.exit(1);
         }
     }
 
-    private static HalObject evaluate(CharStream input) {
+    private static HalObject evaluate(String input) {
+        if(!execute)
+            return null;
+
+        try {
+            return interpreter.run(input);
+        } catch(Throwable e) {
+            handleException(e);
+        }
+
+        return null;
+    }
+
+    private static HalObject evaluate(File file) throws IOException {
         if(!execute)
             return null;
 
         try {
-            return INTERPRETER.run(input);
+            return interpreter.run(file);
+        } catch(IOException e) {
+            throw e;
         } catch(Throwable e) {
             handleException(e);
         }
@@ -146,12 +193,14 @@ public class Hal
     }
 
     private static void handleException(Throwable ex) {
+        // The output printed before the error is written first
+        Output.flush();
         System.err.println(ex.getClass().getSimpleName() + ": " + ex.getMessage());
 
         if(ex instanceof StackOverflowError)
-            System.err.format(INTERPRETER.getStackTrace(5));
+            System.err.format(interpreter.getStackTrace(5));
         else
-            System.err.format(INTERPRETER.getStackTrace());
+            System.err.format(interpreter.getStackTrace());
 
         if(ex instanceof NullPointerException || ex instanceof AssertionError || ex instanceof StackOverflowError)
             ex.printStackTrace();
@@ -171,6 +220,7 @@ public class Hal
         Option help = new Option("help", "print this message");
         Option noexec = new Option("noexec", "do not execute the program");
         Option dot = new Option("dot", "dump the AST in dot format");
+        Option nocache = new Option("nocache", "do not cache the parsed source files");
         Option ast = OptionBuilder
                         .withArgName ("file")
                         .hasArg()
@@ -181,13 +231,27 @@ public class Hal
                         .hasArg()
                         .withDescription ("write a trace of function calls during the execution of the program")
                         .create ("trace");
+        Option profile = OptionBuilder
+                        .withArgName ("file")
+                        .hasArg()
+                        .withDescription ("write the profile of the methods of the program as collapsed stacks")
+                        .create ("profile");
+        Option output = OptionBuilder
+                        .withArgName ("size")
+                        .hasArg()
+                        .withDescription ("size in bytes of the buffer of the standard output")
+                        .withLongOpt ("output-buffer")
+                        .create ();
                                        
         Options options = new Options();
         options.addOption(help);
         options.addOption(dot);
         options.addOption(ast);
         options.addOption(trace);
+        options.addOption(profile);
         options.addOption(noexec);
+        options.addOption(nocache);
+        options.addOption(output);
         CommandLineParser clp = new GnuParser();
         CommandLine line = null;
 
@@ -228,9 +292,29 @@ public class Hal
             tracefile = new PrintWriter(new FileWriter(tracef, true));
         }
         
+        // Option -profile file
+        if (line.hasOption ("profile")) profilefile = new File(line.getOptionValue("profile"));
+
         // Option -noexec
         if (line.hasOption ("noexec")) execute = false;
 
+        // Option -nocache
+        if (line.hasOption ("nocache")) cache = false;
+
+        // Option -output-buffer size
+        if (line.hasOption ("output-buffer")) {
+            try {
+                outputBuffer = Integer.parseInt(line.getOptionValue("output-buffer"));
+            } catch (NumberFormatException e) {
+                outputBuffer = 0;
+            }
+
+            if (outputBuffer <= 0) {
+                System.err.println ("Incorrect command line: invalid size of the output buffer");
+                return false;
+            }
+        }
+
         // Remaining arguments (the input file)
         String[] files = line.getArgs();
 
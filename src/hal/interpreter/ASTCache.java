@@ -0,0 +1,277 @@
+package hal.interpreter;
+
+import hal.parser.HalLexer;
+import hal.parser.HalParser;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.Token;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Cache of parsed programs on disk. The AST of a source file is stored
+ * in a binary form, in a file named after the path of the source. An
+ * entry is only used when the modification time, the size and the hash
+ * of the contents of the source are the ones it was created from, and
+ * when it was created with the same grammar and the same charset, since
+ * the sources are decoded with the default charset of the platform.
+ * Entries are read through a memory-mapped buffer, so a hit does not
+ * need the lexer nor the parser.
+ */
+public class ASTCache
+{
+    private static final int MAGIC = 0x48414c41; // "HALA"
+    private static final int FORMAT = 2;
+    /** Marks a node without token (nil node) */
+    private static final int NIL = -1;
+    private static final String UTF8 = "UTF-8";
+
+    /** Identifies the grammar the entries are built with */
+    private static final int GRAMMAR = grammarHash();
+
+    private File directory;
+
+    public ASTCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the default directory of the cache: the one in the HAL_CACHE
+     * environment variable, or .cache/hal in the home directory.
+     */
+    public static File defaultDirectory() {
+        String dir = System.getenv("HAL_CACHE");
+
+        if(dir != null && !dir.isEmpty())
+            return new File(dir);
+
+        return new File(new File(System.getProperty("user.home"), ".cache"), "hal");
+    }
+
+    /**
+     * Computes the hash of the grammar: the CRC32 of the class files of the
+     * generated parser and lexer, which change with any rule of the grammar.
+     * If they can not be read, only the token types are hashed.
+     */
+    private static int grammarHash() {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+
+        for(Class<?> generated : new Class<?>[]{HalParser.class, HalLexer.class}) {
+            InputStream in = generated.getResourceAsStream(generated.getSimpleName() + ".class");
+
+            if(in == null)
+                return Arrays.hashCode(HalParser.tokenNames);
+
+            try {
+                try {
+                    int n;
+
+                    while((n = in.read(buffer)) > 0)
+                        crc.update(buffer, 0, n);
+                } finally {
+                    in.close();
+                }
+            } catch(IOException e) {
+                return Arrays.hashCode(HalParser.tokenNames);
+            }
+        }
+
+        return (int) crc.getValue();
+    }
+
+    /** Computes the hash of the contents of a source file. */
+    public static long hash(byte[] contents) {
+        CRC32 crc = new CRC32();
+        crc.update(contents, 0, contents.length);
+        return crc.getValue();
+    }
+
+    private File entryFile(File source) throws IOException {
+        String path = source.getCanonicalPath();
+        return new File(directory, Integer.toHexString(path.hashCode()) + "-" + source.getName() + ".ast");
+    }
+
+    /**
+     * Looks up the AST of a source file.
+     * @param source The source file
+     * @param contents The contents of the source file
+     * @return The AST, or null if there is no valid entry in the cache
+     */
+    public HalTree get(File source, byte[] contents) {
+        try {
+            File entry = entryFile(source);
+
+            if(!entry.isFile())
+                return null;
+
+            RandomAccessFile file = new RandomAccessFile(entry, "r");
+
+            try {
+                FileChannel channel = file.getChannel();
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+                if(buffer.getInt() != MAGIC || buffer.getInt() != FORMAT || buffer.getInt() != GRAMMAR)
+                    return null;
+
+                if(!readString(buffer).equals(source.getCanonicalPath()))
+                    return null;
+
+                if(!readString(buffer).equals(Charset.defaultCharset().name()))
+                    return null;
+
+                if(buffer.getLong() != source.lastModified() || buffer.getLong() != contents.length
+                        || buffer.getLong() != hash(contents))
+                    return null;
+
+                String[] strings = new String[buffer.getInt()];
+                for(int i = 0; i < strings.length; ++i)
+                    strings[i] = readString(buffer);
+
+                return readNode(buffer, strings);
+            } finally {
+                file.close();
+            }
+        } catch(IOException e) {
+            return null;
+        } catch(RuntimeException e) {
+            // A corrupted entry is just a miss
+            return null;
+        }
+    }
+
+    /**
+     * Stores the AST of a source file. Errors are ignored, since the
+     * cache is only an optimization.
+     * @param source The source file
+     * @param contents The contents of the source file
+     * @param tree The AST of the source
+     */
+    public void put(File source, byte[] contents, HalTree tree) {
+        File temp = null;
+
+        try {
+            if(!directory.isDirectory() && !directory.mkdirs())
+                return;
+
+            File entry = entryFile(source);
+            temp = File.createTempFile("hal", ".tmp", directory);
+
+            HashMap<String, Integer> indexes = new HashMap<String, Integer>();
+            ArrayList<String> strings = new ArrayList<String>();
+            collectStrings(tree, indexes, strings);
+
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeInt(GRAMMAR);
+                writeString(out, source.getCanonicalPath());
+                writeString(out, Charset.defaultCharset().name());
+                out.writeLong(source.lastModified());
+                out.writeLong(contents.length);
+                out.writeLong(hash(contents));
+
+                out.writeInt(strings.size());
+                for(String s : strings)
+                    writeString(out, s);
+
+                writeNode(out, tree, indexes);
+            } finally {
+                out.close();
+            }
+
+            // Readers never see a partial entry
+            Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            temp = null;
+        } catch(IOException e) {
+            // Nothing to do, the entry is not stored
+        } finally {
+            if(temp != null)
+                temp.delete();
+        }
+    }
+
+    private static void collectStrings(HalTree t, HashMap<String, Integer> indexes, ArrayList<String> strings) {
+        String text = t.getText();
+
+        if(text != null && !indexes.containsKey(text)) {
+            indexes.put(text, strings.size());
+            strings.add(text);
+        }
+
+        int n = t.getChildCount();
+        for(int i = 0; i < n; ++i)
+            collectStrings(t.getChild(i), indexes, strings);
+    }
+
+    private static void writeNode(DataOutputStream out, HalTree t, HashMap<String, Integer> indexes)
+            throws IOException {
+        Token token = t.getToken();
+        String text = t.getText();
+
+        if(token == null) {
+            out.writeInt(NIL);
+        } else {
+            out.writeInt(token.getType());
+            out.writeInt(text == null ? -1 : indexes.get(text));
+            out.writeInt(token.getLine());
+            out.writeInt(token.getCharPositionInLine());
+        }
+
+        int n = t.getChildCount();
+        out.writeInt(n);
+
+        for(int i = 0; i < n; ++i)
+            writeNode(out, t.getChild(i), indexes);
+    }
+
+    private static HalTree readNode(MappedByteBuffer buffer, String[] strings) {
+        int type = buffer.getInt();
+        HalTree t;
+
+        if(type == NIL) {
+            t = new HalTree(null);
+        } else {
+            int text = buffer.getInt();
+            CommonToken token = new CommonToken(type, text < 0 ? null : strings[text]);
+            token.setLine(buffer.getInt());
+            token.setCharPositionInLine(buffer.getInt());
+            t = new HalTree(token);
+        }
+
+        int n = buffer.getInt();
+        for(int i = 0; i < n; ++i)
+            t.addChild(readNode(buffer, strings));
+
+        return t;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF8);
+    }
+}
@@ -27,6 +27,11 @@
 
 package hal.interpreter;
 
+import hal.interpreter.core.FrameLayout;
+import hal.interpreter.core.InlineCache;
+import hal.interpreter.core.JumpTable;
+import hal.interpreter.core.MethodDefinition;
+import hal.interpreter.types.HalObject;
 import org.antlr.runtime.tree.*;
 import org.antlr.runtime.Token;
 
@@ -42,16 +47,146 @@ public class HalTree extends CommonTree {
     /** Field to store integer literals */
     private int intValue;
 
+    /** Text of the token, resolved once when the tree is frozen */
+    private String text;
+
+    /** Line of the node, resolved once when the tree is frozen */
+    private int line;
+
+    /** Children of the node, flattened once when the tree is frozen */
+    private HalTree[] kids;
+
+    /** Slot of the variable accessed by the node (-1 if unresolved) */
+    private int slot = -1;
+
+    /** Layout of the activation record of a method or lambda definition */
+    private FrameLayout layout;
+
+    /** Inline cache of the method calls performed by the node */
+    private InlineCache cache;
+
+    /** Definition built from a method or lambda definition node, shared by all its evaluations */
+    private MethodDefinition template;
+
+    /** Value of a literal or of a folded constant expression (null if none) */
+    private HalObject constant;
+
+    /** Sum of the versions of the classes when the expression was folded (-1 for literals) */
+    private int constantVersion = -1;
+
+    /** Jump table of the literal clauses of a case statement (null if none) */
+    private JumpTable jumpTable;
+
+    /** Slots in the enclosing frame of the variables of a for loop body (null if it has its own frame) */
+    private int[] loopSlots;
+
     /** Constructor of the class */
     public HalTree(Token t) {
         super(t);
     }
 
+    /**
+     * Freezes the node. The text of the token is interned, its line is
+     * kept and the list of children is copied into an array, so the
+     * interpreter does not need to go through the token every time the
+     * node is executed. The tree must not change afterwards.
+     * @return false if the node had already been frozen.
+     */
+    public boolean freeze() {
+        if (kids != null) return false;
+
+        String t = super.getText();
+        text = t == null ? null : t.intern();
+        line = super.getLine();
+
+        int n = super.getChildCount();
+        kids = new HalTree[n];
+        for (int i = 0; i < n; ++i) kids[i] = (HalTree) super.getChild(i);
+
+        return true;
+    }
+
+    /** Checks whether the node has been frozen. */
+    public boolean isFrozen() { return kids != null; }
+
+    /** Function to get the text of the node. */
+    public String getText() {
+        if (kids != null) return text;
+        return super.getText();
+    }
+
+    /** Function to get the line of the node. */
+    public int getLine() {
+        if (kids != null) return line;
+        return super.getLine();
+    }
+
     /** Function to get the child of the node. */
     public HalTree getChild(int i) {
+        if (kids != null) return kids[i];
         return (HalTree) super.getChild(i);
     }
 
+    /** Function to get the number of children of the node. */
+    public int getChildCount() {
+        if (kids != null) return kids.length;
+        return super.getChildCount();
+    }
+
+    /** Get the slot of the variable accessed by the node. */
+    public int getSlot() { return slot; }
+
+    /** Define the slot of the variable accessed by the node. */
+    public void setSlot(int s) { slot = s; }
+
+    /** Get the layout of the frame of a definition node. */
+    public FrameLayout getLayout() { return layout; }
+
+    /** Define the layout of the frame of a definition node. */
+    public void setLayout(FrameLayout l) { layout = l; }
+
+    /** Get the inline cache of the node. It is created on first use. */
+    public InlineCache getCache() {
+        if (cache == null) cache = new InlineCache();
+        return cache;
+    }
+
+    /** Get the template of the definition of the node (null if it has not been built). */
+    public MethodDefinition getTemplate() { return template; }
+
+    /** Define the template of the definition of the node. */
+    public void setTemplate(MethodDefinition t) { template = t; }
+
+    /** Get the constant value of the node (null if it is not constant). */
+    public HalObject getConstant() { return constant; }
+
+    /** Get the version of the classes the constant was folded with. */
+    public int getConstantVersion() { return constantVersion; }
+
+    /** Define the value of a literal node. */
+    public void setConstant(HalObject value) {
+        constant = value;
+        constantVersion = -1;
+    }
+
+    /** Define the value of a constant expression folded with a version of the classes. */
+    public void setConstant(HalObject value, int version) {
+        constant = value;
+        constantVersion = version;
+    }
+
+    /** Get the jump table of a case statement node (null if it has none). */
+    public JumpTable getJumpTable() { return jumpTable; }
+
+    /** Define the jump table of a case statement node. */
+    public void setJumpTable(JumpTable table) { jumpTable = table; }
+
+    /** Get the slots of the variables of a for loop body run in the enclosing frame (null if none). */
+    public int[] getLoopSlots() { return loopSlots; }
+
+    /** Define the slots of the variables of a for loop body run in the enclosing frame. */
+    public void setLoopSlots(int[] slots) { loopSlots = slots; }
+
     /** Get the integer value of the node. */
     public int getIntValue() { return intValue;}
 
@@ -2,8 +2,8 @@ package hal.interpreter;
 
 import hal.Hal;
 import hal.interpreter.core.*;
+import hal.interpreter.core.data.Range;
 import hal.interpreter.exceptions.AttributeException;
-import hal.interpreter.exceptions.NameException;
 import hal.interpreter.exceptions.SyntaxException;
 import hal.interpreter.exceptions.TypeException;
 import hal.interpreter.types.*;
@@ -14,20 +14,30 @@ import hal.interpreter.types.enumerable.HalRange;
 import hal.interpreter.types.numeric.HalFloat;
 import hal.interpreter.types.numeric.HalInteger;
 import hal.interpreter.types.numeric.HalLong;
+import hal.interpreter.types.numeric.HalNumber;
+import hal.interpreter.types.numeric.HalRational;
 import hal.parser.HalLexer;
-import org.antlr.runtime.ANTLRFileStream;
 import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonToken;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
 
 /** Class that implements the interpreter of the language. */
 
 public class Interpreter
 {
+    /** Interpreter running in each thread */
+    private static final ThreadLocal<Interpreter> current = new ThreadLocal<Interpreter>();
+
     private Parser parser;
+    /** Modules already loaded, by address */
+    private HashMap<String, HalModule> modules = new HashMap<String, HalModule>();
+    /** Import statements built by require, by module name */
+    private HashMap<String, HalTree> requires = new HashMap<String, HalTree>();
     /** Memory of the virtual machine. */
     private Stack stack;
     private ReferenceRecord globals;
@@ -43,6 +53,12 @@ public class Interpreter
 
     /** Nested levels of function calls. */
     private int function_nesting = 0;
+
+    /** Profiler of the calls to methods (null if the program is not profiled). */
+    private Profiler profiler = null;
+
+    /** Changes of the program to the builtin classes */
+    private Isolate isolate = new Isolate();
     
     /**
      * Constructor of the interpreter. It prepares the main
@@ -61,18 +77,77 @@ public class Interpreter
         stack.pushContext(mainModule.value, mainModule, mainModule, null, 0, false);
     }
 
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Gets the interpreter running in the current thread. Every interpreter
+     * has its own stack, globals and modules, so several programs can run
+     * at the same time in different threads.
+     */
+    public static Interpreter current() {
+        return current.get();
+    }
+
+    /**
+     * Makes this the interpreter of the current thread, so the methods
+     * defined in HAL can be called out of a run, e.g. to print its result.
+     */
+    public void bind() {
+        switchTo(current.get(), this);
+    }
+
+    /**
+     * Replaces the interpreter of the current thread, and registers the
+     * copies of the records of the new one (see {@link Isolate}).
+     */
+    private static void switchTo(Interpreter previous, Interpreter next) {
+        if(previous == next)
+            return;
+
+        if(previous != null)
+            previous.isolate.unbind();
+
+        current.set(next);
+
+        if(next != null)
+            next.isolate.bind();
+    }
+
+    public Isolate getIsolate() {
+        return isolate;
+    }
+
     public HalObject run(CharStream input) {
         stack.popUntilFirstLevel();
         HalTree t = parser.getTree(input);
         return evaluate(t);
     }
 
+    public HalObject run(String source) {
+        stack.popUntilFirstLevel();
+        HalTree t = parser.getTree(source);
+        return evaluate(t);
+    }
+
+    public HalObject run(File file) throws IOException {
+        stack.popUntilFirstLevel();
+        HalTree t = parser.getTree(file);
+        return evaluate(t);
+    }
+
     public HalObject evaluate(HalTree t) {
+        Interpreter previous = current.get();
+        switchTo(previous, this);
+
         try {
             PreProcessAST(t); // Some internal pre-processing on the AST
             return executeListInstructions(t);
         } catch(ClassCastException e) {
             throw TypeException.fromCastException(e);
+        } finally {
+            switchTo(this, previous);
         }
     }
 
@@ -98,16 +173,347 @@ public class Interpreter
     /**
      * Performs some pre-processing on the AST. Basically, it
      * calculates the value of the literals and stores a simpler
-     * representation. See HalTree.java for details.
+     * representation. Constant expressions are folded as well.
+     * Every node is frozen only once, so trees
+     * that are evaluated again are not processed twice.
+     * See HalTree.java for details.
      */
     private void PreProcessAST(HalTree T) {
+        if (T == null || T.isFrozen()) return;
+        compileAST(T);
+        resolveAST(T, null);
+    }
+
+    private void compileAST(HalTree T) {
+        if (T == null || !T.freeze()) return;
+        int n = T.getChildCount();
+        for (int i = 0; i < n; ++i) compileAST(T.getChild(i));
+
+        HalObject literal = literal(T);
+
+        if (literal != null) T.setConstant(literal);
+        else if (foldableOperator(T) != null) T.setConstant(fold(T), foldVersion());
+        else if (T.getType() == HalLexer.CASE_STMT) T.setJumpTable(jumpTable(T.getChild(1)));
+    }
+
+    /**
+     * Whether an object is compared by its value, i.e. two objects of
+     * the class are equal if their values are equal. Objects of other
+     * classes are never equal to them.
+     */
+    private static boolean isComparedByValue(HalObject obj) {
+        HalClass klass = obj.getKlass();
+
+        return klass == HalInteger.klass || klass == HalString.klass || klass == HalSymbol.klass
+                || klass == HalBoolean.klass;
+    }
+
+    /**
+     * Builds the jump table of the clauses of a case statement, with the
+     * first clauses whose value is a literal compared by its value.
+     * @return The table, or null if the first clause is not a literal
+     */
+    private static JumpTable jumpTable(HalTree cases) {
+        JumpTable table = new JumpTable();
+        int n = cases.getChildCount();
+
+        for (int i = 0; i < n; ++i) {
+            HalTree value = cases.getChild(i).getChild(0);
+            HalObject literal = value.getConstantVersion() < 0 ? value.getConstant() : null;
+
+            if (literal == null || !isComparedByValue(literal))
+                break;
+
+            table.add(literal.getValue());
+        }
+
+        return table.size() == 0 ? null : table;
+    }
+
+    /**
+     * Builds the value of a literal node. The value is frozen, so it
+     * can be shared by all the evaluations of the node.
+     * @return The value, or null if the node is not a literal
+     */
+    private static HalObject literal(HalTree t) {
+        HalObject value;
+
+        switch(t.getType()) {
+            case HalLexer.INT:
+                try {
+                    value = HalInteger.valueOf(Integer.parseInt(t.getText()));
+                } catch (NumberFormatException e) {
+                    value = new HalLong(t.getText());
+                }
+                break;
+            case HalLexer.FLOAT:
+                value = new HalFloat(Double.parseDouble(t.getText()));
+                break;
+            case HalLexer.STRING:
+                value = new HalString(t.getText());
+                break;
+            case HalLexer.BOOLEAN:
+                return HalBoolean.valueOf(t.getText().equals("true"));
+            case HalLexer.NONE:
+                return HalNone.NONE;
+            case HalLexer.SYMBOL:
+                return HalSymbol.getSymbol(t.getText().substring(1));
+            default:
+                return null;
+        }
+
+        value.freeze();
+        return value;
+    }
+
+    /** Gets the method of an operator that can be folded (null if it can not). */
+    private static String foldableOperator(HalTree t) {
+        if (t.getChildCount() == 1) {
+            switch(t.getType()) {
+                case HalLexer.PLUS: return "__pos__";
+                case HalLexer.MINUS: return "__neg__";
+                default: return null;
+            }
+        }
+
+        if (t.getChildCount() != 2) return null;
+
+        switch(t.getType()) {
+            case HalLexer.PLUS: return "__add__";
+            case HalLexer.MINUS: return "__sub__";
+            case HalLexer.MUL: return "__mul__";
+            case HalLexer.POW: return "__pow__";
+            case HalLexer.DIV: return "__div__";
+            case HalLexer.DDIV: return "__ddiv__";
+            case HalLexer.MOD: return "__mod__";
+            default: return null;
+        }
+    }
+
+    /**
+     * Gets the version of the classes whose operators are folded. Versions
+     * only grow, so their sum changes when one of them does.
+     */
+    private static int foldVersion() {
+        return HalInteger.klass.getVersion() + HalFloat.klass.getVersion() + HalRational.klass.getVersion()
+                + HalString.klass.getVersion();
+    }
+
+    /**
+     * Gets the value of a constant node: a literal, or an expression
+     * folded with the current version of the classes of the operands.
+     * When the version has changed, the operators could have been
+     * redefined, so the expression is folded again.
+     * @return The value, or null if the node is not constant
+     */
+    private HalObject constantOf(HalTree t) {
+        int version = t.getConstantVersion();
+
+        if (version < 0)
+            return t.getConstant();
+
+        int current = foldVersion();
+
+        if (version == current)
+            return t.getConstant();
+
+        HalObject value = fold(t);
+        t.setConstant(value, current);
+        return value;
+    }
+
+    /**
+     * Folds an arithmetic operation on numbers of the same class, or
+     * the concatenation of two strings, when the operands are constant
+     * and the builtin operator has not been redefined.
+     * @return The frozen result, or null if the expression can not be folded
+     */
+    private HalObject fold(HalTree t) {
+        String op = foldableOperator(t);
+        HalObject x = constantOf(t.getChild(0));
+
+        if (op == null || x == null || !x.hasBuiltin(op))
+            return null;
+
+        HalObject result;
+
+        try {
+            if (t.getChildCount() == 1) {
+                if (!(x instanceof HalNumber))
+                    return null;
+
+                result = x.methodcall(op);
+            } else {
+                HalObject y = constantOf(t.getChild(1));
+
+                if (y == null || x.getKlass() != y.getKlass())
+                    return null;
+
+                if (!(x instanceof HalNumber) && !(x.getKlass() == HalString.klass && op.equals("__add__")))
+                    return null;
+
+                result = x.methodcall(op, y);
+            }
+        } catch (RuntimeException e) {
+            // Errors are raised when the expression is evaluated
+            return null;
+        }
+
+        return result.freeze() ? result : null;
+    }
+
+    /**
+     * Resolves the variables of the AST. Every method and lambda
+     * definition gets the layout of its activation record, and every
+     * access to one of its parameters or local variables gets the slot
+     * where the variable is stored. Accesses that cannot be resolved
+     * are looked up by name at runtime.
+     * @param T The AST to resolve.
+     * @param scope The layout of the enclosing definition (null if the
+     * code is not executed in the frame of a method or a lambda).
+     */
+    private void resolveAST(HalTree T, FrameLayout scope) {
         if (T == null) return;
+
         switch(T.getType()) {
-            case HalLexer.BOOLEAN: T.setBooleanValue(); break;
+            case HalLexer.FUNDEF:
+                // Default values are evaluated when the method is defined
+                resolveAST(T.getChild(1), scope);
+                T.setLayout(resolveDefinition(T.getChild(1), T.getChild(2), true));
+                return;
+
+            case HalLexer.LAMBDA:
+                resolveAST(T.getChild(0), scope);
+                T.setLayout(resolveDefinition(T.getChild(0), T.getChild(1), false));
+                return;
+
+            case HalLexer.CLASSDEF:
+                resolveAST(T.getChild(1), scope);
+                resolveAST(T.getChild(2), null);
+                return;
+
+            case HalLexer.EIGENCLASS:
+                resolveAST(T.getChild(0), scope);
+                resolveAST(T.getChild(1), null);
+                return;
+
+            case HalLexer.FOR_STMT:
+                resolveAST(T.getChild(0), scope);
+                if (!resolveLoop(T.getChild(1), scope)) resolveAST(T.getChild(1), scope);
+                return;
+
+            case HalLexer.METHCALL:
+                // The name of the method is not a variable
+                resolveAST(T.getChild(0), scope);
+                HalTree funcall = T.getChild(1);
+                for (int i = 1; i < funcall.getChildCount(); ++i) resolveAST(funcall.getChild(i), scope);
+                return;
+
+            case HalLexer.FUNCALL:
+            case HalLexer.REFERENCE_VAR:
+                if (scope != null) T.setSlot(scope.indexOf(T.getChild(0).getText()));
+                break;
+
             default: break;
         }
+
         int n = T.getChildCount();
-        for (int i = 0; i < n; ++i) PreProcessAST(T.getChild(i));
+        for (int i = 0; i < n; ++i) resolveAST(T.getChild(i), scope);
+    }
+
+    private FrameLayout resolveDefinition(HalTree params, HalTree block, boolean method) {
+        FrameLayout layout = new FrameLayout(method);
+        int n = params.getChildCount();
+
+        for (int i = 0; i < n; ++i) {
+            HalTree param = params.getChild(i);
+
+            if (param.getType() == HalLexer.PARAM_GROUP || param.getType() == HalLexer.KEYWORD)
+                layout.define(param.getChild(0).getText());
+            else
+                layout.define(param.getText());
+        }
+
+        declareLocals(block, layout);
+        resolveAST(block, layout);
+        return layout;
+    }
+
+    /**
+     * Resolves the body of a for loop in the frame of the enclosing
+     * definition, so the loop can run without a frame of its own. The
+     * variables of the loop and the ones assigned in its body get new
+     * slots of the layout. It is only done when the body does not define
+     * lambdas, which could keep the variables of an iteration.
+     * @return false if the body must be resolved as a lambda
+     */
+    private boolean resolveLoop(HalTree tlambda, FrameLayout scope) {
+        HalTree params = tlambda.getChild(0);
+        HalTree block = tlambda.getChild(1);
+
+        if (scope == null || !isCountedLoop(tlambda) || capturesFrame(block)) return false;
+
+        // A variable of the loop hides the variable of the enclosing frame
+        for (int i = 0; i < params.getChildCount(); ++i)
+            if (scope.indexOf(params.getChild(i).getText()) >= 0) return false;
+
+        int first = scope.size();
+        for (int i = 0; i < params.getChildCount(); ++i) scope.define(params.getChild(i).getText());
+        declareLocals(block, scope);
+
+        int[] slots = new int[scope.size() - first];
+        for (int i = 0; i < slots.length; ++i) slots[i] = first + i;
+
+        // Other iterables call __each__ with a lambda that uses the same layout
+        tlambda.setLayout(scope);
+        tlambda.setLoopSlots(slots);
+        resolveAST(block, scope);
+        return true;
+    }
+
+    /**
+     * Checks whether a block defines lambdas, methods or classes, which
+     * could use its frame after it has run. The bodies of nested for loops
+     * are run before the loop goes on, so they are checked like the block.
+     */
+    private static boolean capturesFrame(HalTree T) {
+        switch(T.getType()) {
+            case HalLexer.FUNDEF:
+            case HalLexer.LAMBDA:
+            case HalLexer.CLASSDEF:
+            case HalLexer.EIGENCLASS:
+                return true;
+
+            case HalLexer.FOR_STMT:
+                return capturesFrame(T.getChild(0)) || capturesFrame(T.getChild(1).getChild(1));
+
+            default: break;
+        }
+
+        int n = T.getChildCount();
+        for (int i = 0; i < n; ++i) if (capturesFrame(T.getChild(i))) return true;
+        return false;
+    }
+
+    /** Adds to the layout the variables assigned in a block of instructions. */
+    private void declareLocals(HalTree T, FrameLayout layout) {
+        switch(T.getType()) {
+            case HalLexer.FUNDEF:
+            case HalLexer.LAMBDA:
+            case HalLexer.CLASSDEF:
+            case HalLexer.EIGENCLASS:
+                return;
+
+            case HalLexer.ASSIGN:
+                HalTree left = T.getChild(0);
+                if (left.getType() == HalLexer.FUNCALL) layout.define(left.getChild(0).getText());
+                break;
+
+            default: break;
+        }
+
+        int n = T.getChildCount();
+        for (int i = 0; i < n; ++i) declareLocals(T.getChild(i), layout);
     }
 
     /**
@@ -130,15 +536,72 @@ public class Interpreter
      * @return The data returned by the function.
      */
     private HalObject executeCall(String funcname, HalMethod lambda, Arguments args) {
-        HalObject f;
+        return executeCall(funcname, null, lambda, args);
+    }
+
+    /**
+     * Executes a function.
+     * @param funcname The name of the function.
+     * @param site The AST node of the call (null if the call is not in the AST).
+     * It provides the slot of the name in the current frame and the inline
+     * cache of the methods of self.
+     * @param args The AST node representing the list of arguments of the caller.
+     * @return The data returned by the function.
+     */
+    private HalObject executeCall(String funcname, HalTree site, HalMethod lambda, Arguments args) {
+        return executeCall(funcname, site, lambda, null, args);
+    }
+
+    /**
+     * Executes a function from an AST node, passing the arguments evaluated
+     * from the node. Positional arguments avoid building Arguments.
+     * @param funcname The name of the function.
+     * @param site The AST node of the call.
+     * @param lambda The block passed to the function.
+     * @param targs The AST node representing the list of arguments of the caller.
+     * @return The data returned by the function.
+     */
+    private HalObject executeCall(String funcname, HalTree site, HalMethod lambda, HalTree targs) {
+        HalObject[] pos = listPositionalArguments(targs);
+
+        if(pos != null)
+            return executeCall(funcname, site, lambda, pos, null);
+
+        return executeCall(funcname, site, lambda, null, listArguments(targs));
+    }
+
+    private HalObject executeCall(String funcname, HalTree site, HalMethod lambda, HalObject[] pos,
+                                  Arguments args) {
+        HalObject f = null;
         HalObject instance;
-        HalObject self = stack.getVariable("self");
+        HalObject self = stack.getSelf();
+
+        if(site != null && site.getSlot() >= 0) {
+            Reference local = stack.getSlot(site.getSlot());
+
+            if(local != null)
+                f = local.data;
+        }
+
+        if(f == null) {
+            if(site != null && site.getCache().isMissing(funcname, self, stack.getCurrentRecord(),
+                    stack.getCurrentModule()))
+                return executeMethodMissing(funcname, lambda, pos, args);
+
+            f = stack.getUnsafeVariable(funcname);
+        }
 
-        f = stack.getUnsafeVariable(funcname);
         instance = self;
 
         if(f == null) {
-            f = self.getRecord().getUnsafeVariable(funcname);
+            Reference method;
+
+            if(site != null)
+                method = site.getCache().lookup(self, funcname);
+            else
+                method = self.lookupMethod(funcname);
+
+            f = method == null ? null : method.data;
             instance = self;
 
             if(f == null) {
@@ -152,78 +615,162 @@ public class Interpreter
                     instance = currentModule;
 
                     if(f == null) {
-                        args.prepend(new HalString(funcname));
-                        return executeCall("__method_missing__", lambda, args);
+                        if(site != null)
+                            site.getCache().setMissing(self, currentModule);
+
+                        return executeMethodMissing(funcname, lambda, pos, args);
                     }
                 }
             }
         }
 
+        if(pos != null)
+            return f.call(instance, lambda, pos);
+
         return f.call(instance, lambda, args);
     }
 
-    private HalObject getReference(String funcname) {
-        HalObject f;
-        HalObject self = stack.getVariable("self");
+    /**
+     * Calls __method_missing__ for a name that is not defined. The name is
+     * passed as the first argument, before the arguments of the call.
+     */
+    private HalObject executeMethodMissing(String funcname, HalMethod lambda, HalObject[] pos, Arguments args) {
+        HalString name = new HalString(funcname);
 
-        try {
-            f = stack.getVariable(funcname);
-        } catch(NameException e) {
-            try {
-                f = self.getRecord().getVariable(funcname);
-            } catch (NameException e2) {
-                try {
-                    f = self.getKlass().getRecord().getVariable(funcname);
-                } catch(NameException e3) {
-                    HalModule currentModule = stack.getCurrentModule();
-                    f = currentModule.getRecord().getVariable(funcname);
-                }
-            }
+        if(pos == null) {
+            args.prepend(name);
+            return executeCall("__method_missing__", null, lambda, null, args);
         }
 
-        return f;
+        HalObject[] missing = new HalObject[pos.length + 1];
+        missing[0] = name;
+        System.arraycopy(pos, 0, missing, 1, pos.length);
+        return executeCall("__method_missing__", null, lambda, missing, null);
+    }
+
+    private HalObject getReference(String funcname, int slot) {
+        HalObject self = stack.getSelf();
+
+        if(slot >= 0 && stack.getSlot(slot) != null)
+            return stack.getSlot(slot).data;
+
+        Reference r = stack.getUnsafeReference(funcname);
+
+        if(r == null)
+            r = self.lookupMethod(funcname);
+
+        if(r == null)
+            r = self.getKlass().getRecord().getUnsafeReference(funcname);
+
+        if(r == null)
+            r = stack.getCurrentModule().getRecord().getReference(funcname);
+
+        return r.data;
     }
 
     public HalObject executeMethod(MethodDefinition def, HalTree block, HalObject instance, HalMethod lambda,
                                    Arguments args)
     {
+        pushMethodContext(def, block, instance);
+
+        for(String arg : args.keys())
+            stack.defineVariable(arg, args.get(arg));
+
+        return runMethod(def, block, lambda);
+    }
+
+    /**
+     * Executes a method whose params are all positional. The arguments
+     * are stored directly in the slots of the params.
+     */
+    public HalObject executeMethod(MethodDefinition def, HalTree block, HalObject instance, HalMethod lambda,
+                                   HalObject[] args)
+    {
+        pushMethodContext(def, block, instance);
+
+        int[] slots = def.getParamSlots();
+
+        for(int i = 0; i < args.length; ++i)
+            stack.defineSlot(slots[i], args[i]);
+
+        return runMethod(def, block, lambda);
+    }
+
+    /**
+     * Executes a block (the body of a lambda) with one or two positional
+     * arguments. The frame of a block has no super, yield nor
+     * block_given?, so the arguments are the only thing stored in it.
+     * @param def The definition of the lambda
+     * @param block The body of the lambda
+     * @param self The object the lambda is executed on
+     * @param x The first argument
+     * @param y The second argument (only used if the lambda has two params)
+     * @return The result of the block
+     */
+    public HalObject executeBlock(MethodDefinition def, HalTree block, HalObject self, HalObject x, HalObject y) {
+        if(profiler != null)
+            return executeMethod(def, block, self, null, y == null ? new HalObject[]{x} : new HalObject[]{x, y});
+
+        stack.pushContext(def.name, self, def.module, def.getLocals(), def.getLayout(), lineNumber(), false);
+
+        int[] slots = def.getParamSlots();
+        stack.defineSlot(slots[0], x);
+
+        if(y != null)
+            stack.defineSlot(slots[1], y);
+
+        // Track line number
+        setLineNumber(block);
+
+        HalObject result = executeListInstructions(block);
+        stack.popContext();
+
+        return result;
+    }
+
+    private void pushMethodContext(MethodDefinition def, HalTree block, HalObject instance) {
         // Dumps trace information (function call and arguments)
         //if (trace != null) traceFunctionCall(tree, args);
 
         // Create the activation record in memory
-        stack.pushContext(def.name, instance, def.module, def.getLocals(), lineNumber(), def.isMethod());
+        stack.pushContext(def.name, instance, def.module, def.getLocals(), def.getLayout(), lineNumber(),
+                def.isMethod());
 
         if(def.klass != null) {
-            ReferenceRecord parent = def.klass.getInstanceRecord().parent;
+            Reference zuper = def.getSuper();
 
-            if(parent != null) {
-                try {
-                    stack.defineVariable("super", parent.getVariable(def.name));
-                } catch(NameException e) {
-                    // No super
-                }
-            }
+            // No super otherwise
+            if(zuper != null && zuper.data != null)
+                stack.defineSlot(FrameLayout.SUPER, zuper.data);
         }
 
         // Track line number
         setLineNumber(block);
 
-        for(String arg : args.keys())
-            stack.defineVariable(arg, args.get(arg));
-
+        if(profiler != null)
+            profiler.enter(def, block);
+    }
 
+    private HalObject runMethod(MethodDefinition def, HalTree block, HalMethod lambda) {
         if(def.isMethod()) {
             if(lambda != null)
-                stack.defineVariable("yield", lambda);
+                stack.defineSlot(FrameLayout.YIELD, lambda);
 
-            stack.defineVariable("block_given?", new HalBoolean(lambda != null));
+            stack.defineSlot(FrameLayout.BLOCK_GIVEN, HalBoolean.valueOf(lambda != null));
         }
 
         // Execute the instructions
-        HalObject result = executeListInstructions(block);
+        HalObject result;
+
+        try {
+            result = executeListInstructions(block);
+        } finally {
+            if(profiler != null)
+                profiler.exit();
+        }
 
         // If the result is null, then the function returns void
-        if (result == null) result = new HalNone();
+        if (result == null) result = HalNone.NONE;
 
         // Dumps trace information
         //if (trace != null) traceReturn(tree, result, args);
@@ -243,7 +790,7 @@ public class Interpreter
      * statement has been executed).
      */
     private HalObject executeListInstructions (HalTree t) {
-        Reference result = stack.getReference("return");
+        Reference result = stack.getReturnReference();
         HalObject last = HalNone.NONE;
 
         int ninstr = t.getChildCount();
@@ -297,6 +844,15 @@ public class Interpreter
                 
             case HalLexer.FOR_STMT: {
                 HalObject obj = evaluateExpression(t.getChild(0));
+
+                if(obj.getKlass() == HalRange.klass && obj.hasBuiltin("__each__")) {
+                    if(t.getChild(1).getLoopSlots() != null)
+                        return executeInlinedLoop(((HalRange) obj).getValue(), t.getChild(1));
+
+                    if(isCountedLoop(t.getChild(1)))
+                        return executeCountedLoop(((HalRange) obj).getValue(), t.getChild(1));
+                }
+
                 return obj.methodcall_lambda("__each__", extractLambda(t.getChild(1)));
             }
 
@@ -316,7 +872,7 @@ public class Interpreter
 
                 switch(left.getType()) {
                     case HalLexer.FUNCALL:
-                        return executeCall(left.getChild(0).getText(), lambda, listArguments(left.getChild(1)));
+                        return executeCall(left.getChild(0).getText(), left, lambda, left.getChild(1));
                     case HalLexer.METHCALL:
                         return evaluateMethodCall(evaluateExpression(left.getChild(0)), left.getChild(1), lambda);
                     default:
@@ -330,7 +886,7 @@ public class Interpreter
                 if (t.getChildCount() != 0)
                      result = evaluateExpression(t.getChild(0));
                 else
-                    result = new HalNone(); // No expression: returns void data
+                    result = HalNone.NONE; // No expression: returns void data
 
                 stack.defineReturn(result);
                 return result;
@@ -342,11 +898,23 @@ public class Interpreter
                 HalObject obj = evaluateExpression(t.getChild(0));
                 HalTree cases = t.getChild(1);
                 int n = cases.getChildCount();
+                int first = 0;
+                JumpTable table = t.getJumpTable();
 
-                for(int i = 0; i < n; ++i) {
+                // The clauses of the table are found by the value of the object
+                if(table != null && isComparedByValue(obj) && obj.hasBuiltin("__eq__")) {
+                    int clause = table.lookup(obj.getValue());
+
+                    if(clause >= 0)
+                        return executeListInstructions(cases.getChild(clause).getChild(1));
+
+                    first = table.size();
+                }
+
+                for(int i = first; i < n; ++i) {
                     HalObject comp = evaluateExpression(cases.getChild(i).getChild(0));
 
-                    if(obj.methodcall("__eq__", comp).toBoolean())
+                    if(operator(cases.getChild(i), obj, "__eq__", comp).toBoolean())
                         return executeListInstructions(cases.getChild(i).getChild(1));
                 }
 
@@ -377,26 +945,36 @@ public class Interpreter
 
 
                 String id = left.getChild(0).getText();
+                int slot = left.getSlot();
+
                 if(stack.isInMethod()) {
-                    stack.defineVariable(id, value);
+                    if(slot >= 0)
+                        stack.defineSlot(slot, value);
+                    else
+                        stack.defineVariable(id, value);
                 } else {
-                    Reference r = stack.getUnsafeReference(id);
+                    Reference r = slot >= 0 ? stack.getSlot(slot) : null;
 
                     if(r == null)
-                        stack.defineVariable(id, value);
-                    else
+                        r = stack.getUnsafeReference(id);
+
+                    if(r != null)
                         r.data = value;
+                    else if(slot >= 0)
+                        stack.defineSlot(slot, value);
+                    else
+                        stack.defineVariable(id, value);
                 }
                 break;
             case HalLexer.GET_ITEM:
                 HalObject d = evaluateExpression(left.getChild(0));
-                d.methodcall("__setitem__", evaluateExpression(left.getChild(1)), value);
+                operator(left, d, "__setitem__", evaluateExpression(left.getChild(1)), value);
                 break;
             case HalLexer.INSTANCE_VAR:
-                stack.getVariable("self").getRecord().defineVariable(left.getChild(0).getText(), value);
+                stack.getSelf().getRecord().defineVariable(left.getChild(0).getText(), value);
                 break;
             case HalLexer.KLASS_VAR:
-                stack.getVariable("self").getKlass().getRecord().defineVariable(
+                stack.getSelf().getKlass().getRecord().defineVariable(
                         left.getChild(0).getText(), value);
                 break;
             case HalLexer.GLOBAL_VAR:
@@ -410,9 +988,9 @@ public class Interpreter
                     throw new TypeException("Impossible to assign to left expression");
 
                 String attr = funcall.getChild(0).getText();
-                ReferenceRecord record = obj.getRecord();
+                ReferenceRecord record = obj.getOwnRecord();
 
-                if(!record.hasVariable(attr))
+                if(record == null || !record.hasVariable(attr))
                     throw new AttributeException(obj, attr);
 
                 record.defineVariable(attr, value);
@@ -431,6 +1009,9 @@ public class Interpreter
      * @return The value of the expression.
      */
     public HalObject evaluateExpression(HalTree t) {
+        HalObject constant = constantOf(t);
+        if (constant != null) return constant;
+
         int previous_line = lineNumber();
         setLineNumber(t);
         int type = t.getType();
@@ -439,28 +1020,14 @@ public class Interpreter
         // Atoms
         switch (type) {
             // An integer literal
+            // Literals of trees that have not been frozen
             case HalLexer.INT:
-                try {
-                    value = new HalInteger(Integer.parseInt(t.getText()));
-                } catch (NumberFormatException e) {
-                    value = new HalLong(t.getText());
-                }
-                break;
             case HalLexer.FLOAT:
-                value = new HalFloat(Double.parseDouble(t.getText()));
-                break;
-            // A Boolean literal
             case HalLexer.BOOLEAN:
-                value = new HalBoolean(t.getBooleanValue());
-                break;
             case HalLexer.NONE:
-                value = HalNone.NONE;
-                break;
             case HalLexer.STRING:
-                value = new HalString(t.getText());
-                break;
             case HalLexer.SYMBOL:
-                value = HalSymbol.getSymbol(t.getText().substring(1));
+                value = literal(t);
                 break;
             case HalLexer.REGEXP:
                 value = new HalRegExp(t.getText());
@@ -481,19 +1048,19 @@ public class Interpreter
                 if(t.getChildCount() > 2)
                     lambda = extractLambda(t.getChild(2));
 
-                value = executeCall(t.getChild(0).getText(), lambda, listArguments(t.getChild(1)));
+                value = executeCall(t.getChild(0).getText(), t, lambda, t.getChild(1));
                 break;
             case HalLexer.INSTANCE_VAR:
-                value = stack.getVariable("self").getRecord().getVariable(t.getChild(0).getText());
+                value = stack.getSelf().getLookupRecord().getVariable(t.getChild(0).getText());
                 break;
             case HalLexer.KLASS_VAR:
-                value = stack.getVariable("self").getKlass().getRecord().getVariable(t.getChild(0).getText());
+                value = stack.getSelf().getKlass().getRecord().getVariable(t.getChild(0).getText());
                 break;
             case HalLexer.GLOBAL_VAR:
                 value = globals.getVariable(t.getText());
                 break;
             case HalLexer.REFERENCE_VAR:
-                value = getReference(t.getChild(0).getText());
+                value = getReference(t.getChild(0).getText(), t.getSlot());
                 break;
             case HalLexer.LIST_EXPR:
                 HalObject obj = evaluateExpression(t.getChild(0));
@@ -514,13 +1081,13 @@ public class Interpreter
         if (t.getChildCount() == 1) {
             switch (type) {
                 case HalLexer.PLUS:
-                    value = value.methodcall("__pos__");
+                    value = operator(t, value, "__pos__");
                     break;
                 case HalLexer.MINUS:
-                    value = value.methodcall("__neg__");
+                    value = operator(t, value, "__neg__");
                     break;
                 case HalLexer.NOT:
-                    value = value.methodcall("__not__");
+                    value = operator(t, value, "__not__");
                     break;
                 default: assert false; // Should never happen
             }
@@ -560,49 +1127,49 @@ public class Interpreter
         switch (type) {
             // Relational operators
             case HalLexer.EQUAL:
-                value = value.methodcall("__eq__", value2); break;
+                value = operator(t, value, "__eq__", value2); break;
             case HalLexer.NOT_EQUAL:
-                value = value.methodcall("__neq__", value2); break;
+                value = operator(t, value, "__neq__", value2); break;
             case HalLexer.LT:
-                value = value.methodcall("__lt__", value2); break;
+                value = operator(t, value, "__lt__", value2); break;
             case HalLexer.LE:
-                value = value.methodcall("__le__", value2); break;
+                value = operator(t, value, "__le__", value2); break;
             case HalLexer.GT:
-                value = value.methodcall("__gt__", value2); break;
+                value = operator(t, value, "__gt__", value2); break;
             case HalLexer.GE:
-                value = value.methodcall("__ge__", value2); break;
+                value = operator(t, value, "__ge__", value2); break;
 
             // Shift operators
             case HalLexer.LSHIFT:
-                value = value.methodcall("__lshift__", value2); break;
+                value = operator(t, value, "__lshift__", value2); break;
             case HalLexer.RSHIFT:
-                value = value.methodcall("__rshift__", value2); break;
+                value = operator(t, value, "__rshift__", value2); break;
 
             // Arithmetic operators
             case HalLexer.PLUS:
-                value = value.methodcall("__add__", value2); break;
+                value = operator(t, value, "__add__", value2); break;
             case HalLexer.DOUBLE_PLUS:
-                value = value.methodcall("__concat__", value2); break;
+                value = operator(t, value, "__concat__", value2); break;
             case HalLexer.MINUS:
-                value = value.methodcall("__sub__", value2); break;
+                value = operator(t, value, "__sub__", value2); break;
             case HalLexer.MUL:
-                value = value.methodcall("__mul__", value2); break;
+                value = operator(t, value, "__mul__", value2); break;
             case HalLexer.POW:
-                value = value.methodcall("__pow__", value2); break;
+                value = operator(t, value, "__pow__", value2); break;
             case HalLexer.DIV:
-                value = value.methodcall("__div__", value2); break;
+                value = operator(t, value, "__div__", value2); break;
             case HalLexer.DDIV:
-                value = value.methodcall("__ddiv__", value2); break;
+                value = operator(t, value, "__ddiv__", value2); break;
             case HalLexer.MOD:
-                value = value.methodcall("__mod__", value2); break;
+                value = operator(t, value, "__mod__", value2); break;
 
             // Additional operators
             case HalLexer.GET_ITEM:
-                value = value.methodcall("__getitem__", value2); break;
+                value = operator(t, value, "__getitem__", value2); break;
 
             case HalLexer.RANGE:
             case HalLexer.RANGEI:
-                value = new HalRange(value, value2, new HalBoolean(type == HalLexer.RANGEI));
+                value = new HalRange(value, value2, HalBoolean.valueOf(type == HalLexer.RANGEI));
                 break;
 
             default: assert false; // Should never happen
@@ -617,7 +1184,7 @@ public class Interpreter
         int n = t.getChildCount();
 
         for(int i = 0; i < n; ++i)
-            array.methodcall("__append!__", evaluateExpression(t.getChild(i)));
+            operator(t, array, "__append!__", evaluateExpression(t.getChild(i)));
 
         return array;
     }
@@ -628,7 +1195,7 @@ public class Interpreter
 
         for(int i = 0; i < n; ++i) {
             HalTree entry = t.getChild(i);
-            dict.methodcall("__setitem__", evaluateExpression(entry.getChild(0)),
+            operator(t, dict, "__setitem__", evaluateExpression(entry.getChild(0)),
                     evaluateExpression(entry.getChild(1)));
         }
 
@@ -669,29 +1236,58 @@ public class Interpreter
 
     private HalObject evaluateMethodCall(HalObject obj, HalTree funcall, HalLambda lambda) {
         String name = funcall.getChild(0).getText();
-        return obj.methodcall_lambda(name, lambda, listArguments(funcall.getChild(1)));
+        HalTree targs = funcall.getChild(1);
+        HalObject[] pos = listPositionalArguments(targs);
+
+        if(pos != null)
+            return obj.methodcall_resolved(funcall.getCache().lookup(obj, name), name, lambda, pos);
+
+        return methodcall(funcall, obj, name, lambda, listArguments(targs));
+    }
+
+    /**
+     * Calls a method of an object. The method is found through the
+     * inline cache of the AST node performing the call.
+     * @param site The AST node of the call.
+     * @param obj The receiver of the call.
+     * @param name The name of the method.
+     * @param lambda The block passed to the method.
+     * @param args The arguments of the call.
+     * @return The result of the call.
+     */
+    private HalObject methodcall(HalTree site, HalObject obj, String name, HalMethod lambda, Arguments args) {
+        return obj.methodcall_resolved(site.getCache().lookup(obj, name), name, lambda, args);
+    }
+
+    /** Calls the method implementing an operator from an AST node. */
+    private HalObject operator(HalTree site, HalObject obj, String name, HalObject... args) {
+        if(args.length == 1)
+            return obj.methodcall_resolved(site.getCache().lookup(obj, name), name, args[0]);
+
+        return methodcall(site, obj, name, null, new Arguments(args));
     }
 
     private HalObject evaluateClassDefinition(HalTree classdef) {
         String name = classdef.getChild(0).getText();
         HalTree inherit = classdef.getChild(1);
         HalTree block = classdef.getChild(2);
-        HalObject self = stack.getVariable("self");
+        HalObject self = stack.getSelf();
         HalObject klass;
 
-        try {
-            try {
-                klass = stack.getVariable(name);
-            } catch(NameException e) {
-                klass = self.getRecord().getVariable(name);
-            }
+        Reference defined = stack.getUnsafeReference(name);
+
+        if(defined == null)
+            defined = self.getRecord().getUnsafeReference(name);
+
+        if(defined != null) {
+            klass = defined.data;
 
             if(!(klass instanceof HalClass))
                 throw new TypeException(name + " is not a class.");
 
             if(inherit.getChildCount() != 0)
                 throw new TypeException("Parent class can not be updated");
-        } catch(NameException e) {
+        } else {
             HalClass parent;
 
             if(inherit.getChildCount() == 0)
@@ -728,10 +1324,18 @@ public class Interpreter
     }
 
     private HalObject evaluateMethodDefinition(HalTree fundef) {
-        HalObject klass = stack.getVariable("self");
-        String name = fundef.getChild(0).getText();
-        Params.Param[] params = extractParams(fundef.getChild(1));
-        MethodDefinition def = new MethodDefinition(stack.getCurrentModule(), klass, name, params);
+        HalObject klass = stack.getSelf();
+        MethodDefinition template = fundef.getTemplate();
+
+        if(template == null) {
+            template = new MethodDefinition(null, null, fundef.getChild(0).getText(), fundef.getLayout(),
+                    extractParams(fundef.getChild(1)));
+
+            if(hasStaticParams(fundef.getChild(1)))
+                fundef.setTemplate(template);
+        }
+
+        MethodDefinition def = new MethodDefinition(template, stack.getCurrentModule(), klass);
         HalMethod method = new HalDefinedMethod(def, fundef.getChild(2));
         klass.getInstanceRecord().defineVariable(def.name, method);
         return method;
@@ -761,14 +1365,195 @@ public class Interpreter
         return params;
     }
 
+    /** Checks whether the params of the body of a for loop are one or two plain names. */
+    private static boolean isCountedLoop(HalTree tlambda) {
+        HalTree params = tlambda.getChild(0);
+        int n = params.getChildCount();
+
+        if(n < 1 || n > 2)
+            return false;
+
+        for(int i = 0; i < n; ++i) {
+            int type = params.getChild(i).getType();
+
+            if(type == HalLexer.PARAM_GROUP || type == HalLexer.KEYWORD)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Executes a for loop over a range as a counted loop. It behaves like
+     * Range#each with the body of the loop as lambda, but no lambda is
+     * created: the body is executed in a frame pushed for every iteration
+     * (which reuses the same activation record) and the counter is stored
+     * directly in the slot of the variable of the loop.
+     * @param range The range of the loop
+     * @param tlambda The body of the loop
+     * @return The value of the last iteration
+     */
+    private HalObject executeCountedLoop(Range range, HalTree tlambda) {
+        HalTree params = tlambda.getChild(0);
+        HalTree block = tlambda.getChild(1);
+        FrameLayout layout = tlambda.getLayout();
+
+        // With two variables, the first one is the index of the iteration
+        int indexSlot = params.getChildCount() == 2 ? layout.indexOf(params.getChild(0).getText()) : -1;
+        int valueSlot = layout.indexOf(params.getChild(params.getChildCount() - 1).getText());
+
+        ReferenceRecord context = stack.getCurrentRecord();
+        HalModule module = stack.getCurrentModule();
+        HalObject self = stack.getSelf();
+        Reference done = stack.getReturnReference();
+        int line = lineNumber();
+
+        HalObject last = HalNone.NONE;
+        int end = range.end + (range.include ? 1 : 0);
+        int index = 0;
+
+        for(int i = range.start; i < end; i += range.step) {
+            stack.pushContext("yield", self, module, context, layout, line, false);
+
+            if(indexSlot >= 0)
+                stack.defineSlot(indexSlot, HalInteger.valueOf(index++));
+
+            stack.defineSlot(valueSlot, HalInteger.valueOf(i));
+            last = executeListInstructions(block);
+            stack.popContext();
+
+            // A return in the body ends the loop
+            if(done.data != null)
+                break;
+        }
+
+        setLineNumber(line);
+        return last;
+    }
+
+    /**
+     * Executes a for loop over a range whose body was resolved in the
+     * current frame. No frame is pushed: the counter is stored in the slot
+     * of the variable of the loop, and the variables of the body are
+     * undefined after every iteration, as if every iteration had its own
+     * frame.
+     * @param range The range of the loop
+     * @param tlambda The body of the loop
+     * @return The value of the last iteration
+     */
+    private HalObject executeInlinedLoop(Range range, HalTree tlambda) {
+        HalTree block = tlambda.getChild(1);
+        int[] slots = tlambda.getLoopSlots();
+        int nparams = tlambda.getChild(0).getChildCount();
+
+        // With two variables, the first one is the index of the iteration
+        int indexSlot = nparams == 2 ? slots[0] : -1;
+        int valueSlot = slots[nparams - 1];
+
+        Reference done = stack.getReturnReference();
+        int line = lineNumber();
+
+        HalObject last = HalNone.NONE;
+        int end = range.end + (range.include ? 1 : 0);
+        int index = 0;
+
+        for(int i = range.start; i < end; i += range.step) {
+            if(indexSlot >= 0)
+                stack.defineSlot(indexSlot, HalInteger.valueOf(index++));
+
+            stack.defineSlot(valueSlot, HalInteger.valueOf(i));
+            last = executeListInstructions(block);
+
+            for(int k = nparams; k < slots.length; ++k)
+                stack.undefineSlot(slots[k]);
+
+            // A return in the body ends the loop
+            if(done.data != null)
+                break;
+        }
+
+        for(int k = 0; k < nparams; ++k)
+            stack.undefineSlot(slots[k]);
+
+        setLineNumber(line);
+        return last;
+    }
+
+    /**
+     * Checks whether the params of a definition are the same every time
+     * the definition is evaluated, i.e. the default values of the keywords
+     * are literals. In that case the params are only built once, in the
+     * template of the definition.
+     */
+    private static boolean hasStaticParams(HalTree tparams) {
+        int nparams = tparams.getChildCount();
+
+        for(int i = 0; i < nparams; ++i) {
+            HalTree param = tparams.getChild(i);
+
+            if(param.getType() == HalLexer.KEYWORD) {
+                HalTree value = param.getChild(1);
+
+                if(value.getConstant() == null || value.getConstantVersion() >= 0)
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
     private HalLambda extractLambda(HalTree tlambda) {
-        return new HalLambda(new LambdaDefinition(stack.getCurrentModule(), stack.getCurrentRecord(),
-                extractParams(tlambda.getChild(0))), tlambda.getChild(1));
+        LambdaDefinition template = (LambdaDefinition) tlambda.getTemplate();
+
+        if(template == null) {
+            template = new LambdaDefinition(null, null, tlambda.getLayout(), extractParams(tlambda.getChild(0)));
+
+            if(hasStaticParams(tlambda.getChild(0)))
+                tlambda.setTemplate(template);
+        }
+
+        return new HalLambda(new LambdaDefinition(template, stack.getCurrentModule(), stack.captureCurrentRecord()),
+                tlambda.getChild(1));
     }
 
+    /**
+     * Imports a module in the current scope. A module is only loaded the
+     * first time it is imported, later imports reuse the loaded module.
+     * @param imp The AST node of the import statement
+     * @return The module
+     */
     public HalModule evaluateImport(HalTree imp) {
         HalTree mod = imp.getChild(0);
+        String address = moduleAddress(mod);
+        HalModule module = modules.get(address);
+
+        if(module == null) {
+            module = loadModule(imp);
+            modules.put(address, module);
+        }
+
+        ReferenceRecord importRecord;
+        try {
+            importRecord = stack.getSelf().getInstanceRecord();
+        } catch(TypeException e) {
+            importRecord = stack.getCurrentRecord();
+        }
+
+        int n = imp.getChildCount();
+        if(n > 1) {
+            for(int i = 1; i < n; ++i) {
+                String name = imp.getChild(i).getText();
+                importRecord.defineVariable(name, module.getRecord().getVariable(name));
+            }
+        }
+        else
+            importRecord.defineVariable(module.root.value, module.root);
 
+        return module;
+    }
+
+    private HalModule loadModule(HalTree imp) {
+        HalTree mod = imp.getChild(0);
         HalPackage pkg = null;
         if(mod.getChildCount() > 0)
             pkg = evaluatePackage(mod.getChild(0));
@@ -776,10 +1561,10 @@ public class Interpreter
         HalModule module = new HalModule(mod.getText(), pkg);
 
         try {
-            CharStream moduleStream;
+            HalTree tree;
 
             try {
-                moduleStream = new ANTLRFileStream(module.getPath());
+                tree = parser.getTree(new File(module.getPath()));
             } catch (IOException e) {
                 String moduleFullPath = new File(
                         new File(
@@ -788,12 +1573,10 @@ public class Interpreter
                         module.getPath()
                 ).toString();
 
-                moduleStream = new ANTLRFileStream(moduleFullPath);
+                tree = parser.getTree(new File(moduleFullPath));
                 module.setFullPath(moduleFullPath);
             }
 
-            HalTree tree = parser.getTree(moduleStream);
-
             stack.pushContext(module.value, module, module, null, imp.getLine(), false);
             evaluate(tree);
             stack.popContext();
@@ -818,24 +1601,38 @@ public class Interpreter
             }
         }
 
-        ReferenceRecord importRecord;
-        try {
-            importRecord = stack.getVariable("self").getInstanceRecord();
-        } catch(TypeException e) {
-            importRecord = stack.getCurrentRecord();
+        return module;
+    }
+
+    /** Gets the address of the module of an import statement (package.module). */
+    private String moduleAddress(HalTree mod) {
+        String address = mod.getText();
+        HalTree pkg = mod.getChildCount() > 0 ? mod.getChild(0) : null;
+
+        while(pkg != null) {
+            address = pkg.getText() + "." + address;
+            pkg = pkg.getChildCount() > 0 ? pkg.getChild(0) : null;
         }
 
-        int n = imp.getChildCount();
-        if(n > 1) {
-            for(int i = 1; i < n; ++i) {
-                String name = imp.getChild(i).getText();
-                importRecord.defineVariable(name, module.getRecord().getVariable(name));
-            }
+        return address;
+    }
+
+    /**
+     * Imports a module by name, as the require function does. The AST of
+     * the import statement is only built once for every name.
+     * @param name The name of the module
+     * @return The module
+     */
+    public HalModule require(String name) {
+        HalTree imp = requires.get(name);
+
+        if(imp == null) {
+            imp = new HalTree(new CommonToken(HalLexer.IMPORT_STMT));
+            imp.addChild(new HalTree(new CommonToken(HalLexer.ID, name)));
+            requires.put(name, imp);
         }
-        else
-            importRecord.defineVariable(module.root.value, module.root);
 
-        return module;
+        return evaluateImport(imp);
     }
 
     private HalPackage evaluatePackage(HalTree pkg) {
@@ -847,6 +1644,35 @@ public class Interpreter
         return new HalPackage(pkg.getText(), parent);
     }
 
+    /**
+     * Evaluates a list of arguments that are only positional.
+     * @param targs The AST node representing the list of arguments.
+     * @return The values of the arguments, or null if there is some keyword
+     * or flattened argument in the list.
+     */
+    private HalObject[] listPositionalArguments(HalTree targs) {
+        int n = targs.getChildCount();
+
+        for(int i = 0; i < n; ++i) {
+            int type = targs.getChild(i).getType();
+
+            if(type == HalLexer.FLATTEN_ARG || type == HalLexer.KEYWORD)
+                return null;
+        }
+
+        setLineNumber(targs);
+
+        HalObject[] args = new HalObject[n];
+
+        for(int i = 0; i < n; ++i) {
+            HalTree arg = targs.getChild(i);
+            setLineNumber(arg);
+            args[i] = evaluateExpression(arg);
+        }
+
+        return args;
+    }
+
     /**
      * Gathers the list of arguments of a function call. It also checks
      * that the arguments are compatible with the parameters. In particular,
@@ -855,7 +1681,6 @@ public class Interpreter
      * @param targs The AST of the list of arguments passed by the caller.
      * @return The list of evaluated arguments.
      */
-
     private Arguments listArguments(HalTree targs) {
         setLineNumber(targs);
 
@@ -0,0 +1,57 @@
+package hal.interpreter;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+
+/**
+ * Standard output of the programs. The output is kept in a buffer and
+ * written when the buffer is full, when the program calls flush, before
+ * an error is written and when the interpreter exits. In interactive
+ * mode the buffer is also written at the end of every line, so the
+ * output is seen as soon as it is printed.
+ */
+public class Output
+{
+    /** Default size of the buffer, in bytes */
+    public static final int DEFAULT_SIZE = 64 * 1024;
+
+    /**
+     * Replaces the standard output by a buffered one.
+     * @param size The size of the buffer, in bytes
+     * @param interactive Whether every line is written as soon as it ends
+     */
+    public static void init(int size, boolean interactive) {
+        BufferedOutputStream buffer = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), size);
+        // Keep the encoding of the original standard output
+        String encoding = System.getProperty("stdout.encoding");
+        PrintStream out = null;
+
+        if(encoding != null) {
+            try {
+                out = new PrintStream(buffer, interactive, encoding);
+            } catch(UnsupportedEncodingException e) {
+                // Use the default encoding
+            }
+        }
+
+        if(out == null)
+            out = new PrintStream(buffer, interactive);
+
+        System.setOut(out);
+
+        // The program can finish with System.exit
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            public void run() {
+                flush();
+            }
+        });
+    }
+
+    /** Writes the output kept in the buffer. */
+    public static void flush() {
+        System.out.flush();
+    }
+}
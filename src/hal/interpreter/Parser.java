@@ -2,23 +2,99 @@ package hal.interpreter;
 
 import hal.parser.HalLexer;
 import hal.parser.HalParser;
+import org.antlr.runtime.ANTLRStringStream;
 import org.antlr.runtime.CharStream;
 import org.antlr.runtime.CommonTokenStream;
 import org.antlr.runtime.tree.DOTTreeGenerator;
 
 import java.io.BufferedWriter;
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 
 public class Parser {
+    /** Number of trees of sources given as strings that are kept */
+    private static final int SOURCES = 64;
+
     private File astfile;
     private boolean dotformat;
+    /** Cache of the trees of source files (null if it is disabled) */
+    private ASTCache cache;
+    /** Trees of the last sources given as strings, in order of use */
+    private LinkedHashMap<String, HalTree> sources;
 
     public Parser(File file, boolean dot) {
         astfile = file;
         dotformat = dot;
+
+        sources = new LinkedHashMap<String, HalTree>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, HalTree> eldest) {
+                return size() > SOURCES;
+            }
+        };
+    }
+
+    public void setCache(ASTCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Gets the AST of a source file. If the cache has the tree of the
+     * current contents of the file, the file is not parsed.
+     * @param file The source file
+     * @return The AST of the file
+     */
+    public HalTree getTree(File file) throws IOException {
+        byte[] contents = new byte[(int) file.length()];
+        DataInputStream input = new DataInputStream(new FileInputStream(file));
+
+        try {
+            input.readFully(contents);
+        } finally {
+            input.close();
+        }
+
+        if(cache != null) {
+            HalTree tree = cache.get(file, contents);
+
+            if(tree != null)
+                return tree;
+        }
+
+        // The charset is part of the key of the entries of the cache
+        ANTLRStringStream source = new ANTLRStringStream(new String(contents, Charset.defaultCharset()));
+        source.name = file.getPath();
+
+        HalTree tree = getTree(source);
+
+        if(cache != null)
+            cache.put(file, contents, tree);
+
+        return tree;
+    }
+
+    /**
+     * Gets the AST of a source, like an input of the interactive mode.
+     * The trees of the last sources are kept, so repeating a source does
+     * not parse it again.
+     * @param source The source code
+     * @return The AST of the source
+     */
+    public HalTree getTree(String source) {
+        HalTree tree = sources.get(source);
+
+        if(tree == null) {
+            tree = getTree(new ANTLRStringStream(source));
+            sources.put(source, tree);
+        }
+
+        return tree;
     }
 
     public HalTree process(CharStream source) throws IOException {
@@ -0,0 +1,234 @@
+package hal.interpreter;
+
+import hal.interpreter.core.MethodDefinition;
+import org.antlr.runtime.tree.Tree;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * Profiler of the methods defined in HAL. Every call to a method or a
+ * lambda is measured: number of calls, inclusive and exclusive wall time
+ * and allocated bytes. Methods are identified by their name, module and
+ * line. The calls are also kept in a tree of calling contexts, which is
+ * written as collapsed stacks that flame graph tools can read.
+ */
+public class Profiler
+{
+    /** Statistics of a method */
+    private static class Method {
+        String name;
+        long calls = 0;
+        long inclusive = 0;
+        long exclusive = 0;
+        long allocated = 0;
+        /** Activations of the method in the stack (recursion is only counted once) */
+        int active = 0;
+
+        Method(String name) {
+            this.name = name;
+        }
+    }
+
+    /** Node of the tree of calling contexts */
+    private static class Node {
+        Method method;
+        Node parent;
+        HashMap<Method, Node> children = new LinkedHashMap<Method, Node>();
+        long exclusive = 0;
+
+        Node(Method method, Node parent) {
+            this.method = method;
+            this.parent = parent;
+        }
+    }
+
+    /** Activation of a method */
+    private static class Frame {
+        Node node;
+        long start;
+        long startAllocated;
+        long children = 0;
+        long childrenAllocated = 0;
+
+        Frame(Node node, long start, long startAllocated) {
+            this.node = node;
+            this.start = start;
+            this.startAllocated = startAllocated;
+        }
+    }
+
+    private HashMap<String, Method> methods;
+    /** Methods already named, by the block of their definition */
+    private IdentityHashMap<HalTree, Method> blocks;
+    private Node root;
+    private ArrayList<Frame> frames;
+
+    private com.sun.management.ThreadMXBean threads;
+
+    public Profiler() {
+        methods = new HashMap<String, Method>();
+        blocks = new IdentityHashMap<HalTree, Method>();
+        root = new Node(null, null);
+        frames = new ArrayList<Frame>();
+
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if(bean instanceof com.sun.management.ThreadMXBean) {
+            threads = (com.sun.management.ThreadMXBean) bean;
+
+            if(threads.isThreadAllocatedMemorySupported())
+                threads.setThreadAllocatedMemoryEnabled(true);
+            else
+                threads = null;
+        }
+    }
+
+    private long allocated() {
+        if(threads == null)
+            return 0;
+
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private Method getMethod(MethodDefinition def, HalTree block) {
+        Method method = blocks.get(block);
+
+        if(method == null) {
+            String module = def.module == null ? "<builtin>" : def.module.value;
+            String name = def.name + " (" + module + ":" + definitionLine(block) + ")";
+
+            method = methods.get(name);
+
+            if(method == null) {
+                method = new Method(name);
+                methods.put(name, method);
+            }
+
+            blocks.put(block, method);
+        }
+
+        return method;
+    }
+
+    /**
+     * Gets the line of the definition of a method, i.e. the line of the def
+     * node that contains its body. Nodes without a line, like the ones of
+     * lambdas without params, take the line of the body.
+     */
+    private static int definitionLine(HalTree block) {
+        Tree definition = block.getParent();
+
+        if(definition != null && definition.getLine() > 0)
+            return definition.getLine();
+
+        return block.getLine();
+    }
+
+    private Node current() {
+        return frames.isEmpty() ? root : frames.get(frames.size() - 1).node;
+    }
+
+    /**
+     * Records the start of a call.
+     * @param def The definition of the method
+     * @param block The body of the method
+     */
+    public void enter(MethodDefinition def, HalTree block) {
+        Method method = getMethod(def, block);
+        Node parent = current();
+        Node node = parent.children.get(method);
+
+        if(node == null) {
+            node = new Node(method, parent);
+            parent.children.put(method, node);
+        }
+
+        method.calls++;
+        method.active++;
+        frames.add(new Frame(node, System.nanoTime(), allocated()));
+    }
+
+    /** Records the end of the last call. */
+    public void exit() {
+        if(frames.isEmpty())
+            return;
+
+        Frame frame = frames.remove(frames.size() - 1);
+        long time = System.nanoTime() - frame.start;
+        long bytes = allocated() - frame.startAllocated;
+        Method method = frame.node.method;
+
+        method.exclusive += time - frame.children;
+        method.allocated += bytes - frame.childrenAllocated;
+        frame.node.exclusive += time - frame.children;
+
+        if(--method.active == 0)
+            method.inclusive += time;
+
+        if(!frames.isEmpty()) {
+            Frame parent = frames.get(frames.size() - 1);
+            parent.children += time;
+            parent.childrenAllocated += bytes;
+        }
+    }
+
+    /** Ends the calls that have not returned, e.g. after an error. */
+    public void finish() {
+        while(!frames.isEmpty())
+            exit();
+    }
+
+    /**
+     * Writes the results of the profile. The file contains the collapsed
+     * stacks with the exclusive time in microseconds, and the file with
+     * the suffix .summary contains the statistics of every method.
+     * @param file The file of the collapsed stacks
+     */
+    public void write(File file) throws IOException {
+        finish();
+
+        PrintWriter stacks = new PrintWriter(new FileWriter(file));
+        for(Node child : root.children.values())
+            writeStacks(stacks, child, "");
+        stacks.close();
+
+        ArrayList<Method> sorted = new ArrayList<Method>(methods.values());
+        Collections.sort(sorted, new Comparator<Method>() {
+            public int compare(Method a, Method b) {
+                return Long.compare(b.exclusive, a.exclusive);
+            }
+        });
+
+        PrintWriter summary = new PrintWriter(new FileWriter(file.getPath() + ".summary"));
+        summary.format("%10s %14s %14s %14s  %s%n", "calls", "inclusive(ms)", "exclusive(ms)",
+                "allocated(KB)", "method");
+
+        for(Method method : sorted) {
+            summary.format("%10d %14.3f %14.3f %14d  %s%n", method.calls, method.inclusive / 1e6,
+                    method.exclusive / 1e6, method.allocated / 1024, method.name);
+        }
+
+        summary.close();
+    }
+
+    private void writeStacks(PrintWriter out, Node node, String prefix) {
+        String stack = prefix + node.method.name.replace(';', ',');
+        long micros = node.exclusive / 1000;
+
+        if(micros > 0)
+            out.println(stack + " " + micros);
+
+        for(Node child : node.children.values())
+            writeStacks(out, child, stack + ";");
+    }
+}
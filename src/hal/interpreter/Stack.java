@@ -28,49 +28,38 @@
 package hal.interpreter;
 
 import hal.interpreter.core.Context;
+import hal.interpreter.core.FrameLayout;
 import hal.interpreter.core.ReferenceRecord;
 import hal.interpreter.types.HalModule;
 import hal.interpreter.types.HalObject;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.ListIterator;
+import java.util.Arrays;
 
 /**
  * Class to represent the memory of the virtual machine of the
  * interpreter. The memory is organized as a stack of activation
  * records and each entry in the activation record contains is a pair
  * <name of variable,value>.
+ * The frames of the stack are kept in an array and reused by the
+ * following calls, together with their activation records, unless
+ * a record has been captured by a lambda.
  */
  
 public class Stack
 {
-    /** Stack of contexts */
-    private LinkedList<Context> stack;
+    private static final int INITIAL_DEPTH = 64;
+
+    /** Stack of contexts. The frames above the depth are kept to be reused */
+    private Context[] stack;
+    private int depth;
     private HalModule module;
     private ReferenceRecord record;
 
-    /**
-     * Class to represent an item of the Stack trace.
-     * For each function call, the function name and
-     * the line number of the call are stored.
-     */
-    class StackTraceItem {
-        public String fname; // Function name
-        public int line; // Line number
-        public StackTraceItem (String name, int l) {
-            fname = name; line = l;
-        }
-    }
-
-    /** Stack trace to keep track of function calls */
-    private LinkedList<StackTraceItem> stackTrace;
-    
     /** Constructor of the memory */
     public Stack() {
-        stack = new LinkedList<Context>();
+        stack = new Context[INITIAL_DEPTH];
+        depth = 0;
         record = null;
-        stackTrace = new LinkedList<StackTraceItem>();
     }
 
     /** Creates a new activation record on the top of the stack */
@@ -80,34 +69,62 @@ public class Stack
 
     public void pushContext(String name, HalObject inst, HalModule mod, ReferenceRecord parent, int line,
                             boolean method) {
+        pushContext(name, inst, mod, parent, FrameLayout.DEFAULT, line, method);
+    }
+
+    public void pushContext(String name, HalObject inst, HalModule mod, ReferenceRecord parent,
+                            FrameLayout layout, int line, boolean method) {
+        if(depth == stack.length)
+            stack = Arrays.copyOf(stack, depth * 2);
+
+        Context frame = stack[depth];
+
+        if(frame == null) {
+            frame = new Context();
+            stack[depth] = frame;
+        }
+
+        // The record of the previous activation at this depth is reused
+        ReferenceRecord previous = frame.record;
+
+        if(previous != null && previous.isReusable(layout)) {
+            record = previous;
+            record.parent = parent;
+        } else {
+            record = new ReferenceRecord(parent, layout);
+        }
+
         module = mod;
-        record = new ReferenceRecord(parent);
-        record.defineVariable("self", inst);
-        record.defineVariable("return", null);
-        stack.addLast(new Context(mod, record, method));
-        stackTrace.addLast(new StackTraceItem(name, line));
+        record.defineSlot(FrameLayout.SELF, inst);
+        record.defineSlot(FrameLayout.RETURN, null);
+        frame.set(mod, record, method, name, line);
+        depth++;
     }
 
     /** Destroys the record activation record */
     public void popContext() {
-        stack.removeLast();
-        stackTrace.removeLast();
+        Context frame = stack[--depth];
+
+        if(frame.record.captured)
+            frame.record = null;
+        else
+            frame.record.clear();
 
-        if (stack.isEmpty()) {
+        if (depth == 0) {
             module = null;
             record = null;
         } else {
-            Context last = stack.getLast();
+            Context last = stack[depth - 1];
             module = last.module;
             record = last.record;
         }
     }
 
     public void popUntilFirstLevel() {
-        while(stack.size() > 1)
+        while(depth > 1)
             popContext();
 
-        defineVariable("return", null);
+        defineSlot(FrameLayout.RETURN, null);
     }
 
     public HalObject getUnsafeVariable(String name){
@@ -126,11 +143,34 @@ public class Stack
         record.defineVariable(name, obj);
     }
 
+    /** Gets the reference stored in a slot of the current activation record */
+    public Reference getSlot(int slot) {
+        return record.getSlot(slot);
+    }
+
+    /** Defines a variable stored in a slot of the current activation record */
+    public void defineSlot(int slot, HalObject obj) {
+        record.defineSlot(slot, obj);
+    }
+
+    /** Undefines a variable stored in a slot of the current activation record */
+    public void undefineSlot(int slot) {
+        record.undefineSlot(slot);
+    }
+
+    public HalObject getSelf() {
+        return record.getSlot(FrameLayout.SELF).data;
+    }
+
+    public Reference getReturnReference() {
+        return record.getSlot(FrameLayout.RETURN);
+    }
+
     public void defineReturn(HalObject obj) {
-        Context current = stack.getLast();
+        Context current = stack[depth - 1];
 
         if(current.isMethod)
-            current.record.defineVariable("return", obj);
+            current.record.defineSlot(FrameLayout.RETURN, obj);
         else {
             ReferenceRecord parent = current.record.parent;
 
@@ -140,12 +180,11 @@ public class Stack
             while(parent.parent != null)
                 parent = parent.parent;
 
-            Iterator<Context> it = stack.descendingIterator();
             boolean found = false;
 
-            while(it.hasNext() && !found) {
-                Context c = it.next();
-                c.record.defineVariable("return", obj);
+            for(int i = depth - 1; i >= 0 && !found; --i) {
+                Context c = stack[i];
+                c.record.defineSlot(FrameLayout.RETURN, obj);
                 found = c.isMethod && parent == c.record;
             }
 
@@ -166,8 +205,20 @@ public class Stack
         return record;
     }
 
+    /**
+     * Gets the current activation record to use it after the activation
+     * ends, e.g. as the scope of a lambda. The record and its enclosing
+     * records are not reused.
+     */
+    public ReferenceRecord captureCurrentRecord() {
+        for(ReferenceRecord r = record; r != null && !r.captured; r = r.parent)
+            r.captured = true;
+
+        return record;
+    }
+
     public boolean isInMethod() {
-        return stack.getLast().isMethod;
+        return stack[depth - 1].isMethod;
     }
 
     /**
@@ -180,17 +231,13 @@ public class Stack
      * @return A string with the contents of the stack trace.
      */ 
     public String getStackTrace(int current_line) {
-        int size = stackTrace.size();
-        ListIterator<StackTraceItem> itr = stackTrace.listIterator(size);
-        ListIterator<Context> itr2 = stack.listIterator(size);
         StringBuffer trace = new StringBuffer("---------------%n| Stack trace |%n---------------%n");
-        trace.append("** Depth = ").append(size).append("%n");
-        while (itr.hasPrevious()) {
-            StackTraceItem it = itr.previous();
-            Context c = itr2.previous();
-            trace.append("|> ").append(it.fname).append(": line ").append(current_line);
+        trace.append("** Depth = ").append(depth).append("%n");
+        for (int i = depth - 1; i >= 0; --i) {
+            Context c = stack[i];
+            trace.append("|> ").append(c.name).append(": line ").append(current_line);
             trace.append(" (").append(c.module.getFullPath()).append(")%n");
-            current_line = it.line;
+            current_line = c.line;
         }
         return trace.toString();
     }
@@ -205,21 +252,20 @@ public class Stack
      * @return A string with the contents of the stack trace.
      */ 
     public String getStackTrace(int current_line, int nitems) {
-        int size = stackTrace.size();
+        int size = depth;
         if (2*nitems >= size) return getStackTrace(current_line);
-        ListIterator<StackTraceItem> itr = stackTrace.listIterator(size);
         StringBuffer trace = new StringBuffer("---------------%n| Stack trace |%n---------------%n");
         trace.append("** Depth = ").append(size).append("%n");
         int i;
         for (i = 0; i < nitems; ++i) {
-           StackTraceItem it = itr.previous();
-           trace.append("|> ").append(it.fname).append(": line ").append(current_line).append("%n");current_line = it.line;
+           Context c = stack[size - 1 - i];
+           trace.append("|> ").append(c.name).append(": line ").append(current_line).append("%n");current_line = c.line;
         }
         trace.append("|> ...%n");
-        for (; i < size-nitems; ++i) current_line = itr.previous().line;
+        for (; i < size-nitems; ++i) current_line = stack[size - 1 - i].line;
         for (; i < size; ++i) {
-           StackTraceItem it = itr.previous();
-           trace.append("|> ").append(it.fname).append(": line ").append(current_line).append("%n");current_line = it.line;
+           Context c = stack[size - 1 - i];
+           trace.append("|> ").append(c.name).append(": line ").append(current_line).append("%n");current_line = c.line;
         }
         return trace.toString();
     } 
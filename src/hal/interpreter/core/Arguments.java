@@ -12,19 +12,19 @@ public class Arguments {
 
     public Arguments() {
         pos = new ArrayList<HalObject>();
-        args = new HashMap<String, HalObject>();
+        args = null; // Created when the first keyword is put
     }
 
     public Arguments(HalObject...pos) {
-        this();
         this.pos = new ArrayList<HalObject>(Arrays.asList(pos));
+        args = null;
     }
 
     public Arguments(HalObject[] pos, Params.Keyword...keywords) {
         this(pos);
 
         for(Params.Keyword kw : keywords)
-            args.put(kw.name, kw.value);
+            put(kw.name, kw.value);
     }
 
     public Arguments(HalArray array) {
@@ -45,30 +45,42 @@ public class Arguments {
     }
 
     public boolean isEmpty(){
-        return pos.size() == 0 && args.size() == 0;
+        return pos.size() == 0 && size() == 0;
     }
 
     public HalObject get(String name) {
+        if(args == null)
+            return null;
+
         return args.get(name);
     }
 
     public void put(String name, HalObject arg) {
+        if(args == null)
+            args = new HashMap<String, HalObject>();
+
         args.put(name, arg);
     }
 
     public boolean contains(String name) {
-        return args.containsKey(name);
+        return args != null && args.containsKey(name);
     }
 
     public int size() {
-        return args.size();
+        return args == null ? 0 : args.size();
     }
 
     public Set<String> keys() {
+        if(args == null)
+            return Collections.emptySet();
+
         return args.keySet();
     }
 
     public Set<Map.Entry<String, HalObject>> entrySet() {
+        if(args == null)
+            return Collections.emptySet();
+
         return args.entrySet();
     }
 }
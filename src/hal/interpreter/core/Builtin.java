@@ -10,5 +10,5 @@ abstract public class Builtin extends HalMethod
         super(new MethodDefinition(null, null, name, params));
     }
 
-    public HalBoolean bool(){ return new HalBoolean(true); }
+    public HalBoolean bool(){ return HalBoolean.TRUE; }
 }
@@ -3,14 +3,25 @@ package hal.interpreter.core;
 
 import hal.interpreter.types.HalModule;
 
+/**
+ * Frame of the stack. Besides the activation record, it keeps the data
+ * of the stack trace: the name of the function and the line of the call.
+ * Frames are reused by the following calls at the same depth.
+ */
 public class Context {
     public HalModule module;
     public ReferenceRecord record;
     public boolean isMethod;
+    /** Function name */
+    public String name;
+    /** Line number of the call */
+    public int line;
 
-    public Context(HalModule module, ReferenceRecord record, boolean isMethod) {
+    public void set(HalModule module, ReferenceRecord record, boolean isMethod, String name, int line) {
         this.module = module;
         this.record = record;
         this.isMethod = isMethod;
+        this.name = name;
+        this.line = line;
     }
 }
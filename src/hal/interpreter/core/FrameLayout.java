@@ -0,0 +1,77 @@
+package hal.interpreter.core;
+
+import java.util.ArrayList;
+
+
+/**
+ * Layout of an activation record. Every name that is known to live in
+ * the frame of a method or a lambda (self, return, the parameters and
+ * the local variables assigned in its body) is given a fixed slot, so
+ * the frame can be stored as a flat array and accessed by index.
+ * Names that are not in the layout are stored by name in the record.
+ */
+public class FrameLayout
+{
+    public static final int SELF = 0;
+    public static final int RETURN = 1;
+    public static final int SUPER = 2;
+    public static final int YIELD = 3;
+    public static final int BLOCK_GIVEN = 4;
+
+    /** Layout of the frames that are not associated to a definition */
+    public static final FrameLayout DEFAULT = new FrameLayout(false);
+
+    private ArrayList<String> slots;
+    public String[] names;
+
+    public FrameLayout(boolean method) {
+        slots = new ArrayList<String>();
+        slots.add("self");
+        slots.add("return");
+
+        if(method) {
+            slots.add("super");
+            slots.add("yield");
+            slots.add("block_given?");
+        }
+
+        names = slots.toArray(new String[slots.size()]);
+    }
+
+    /**
+     * Adds a name to the layout.
+     * @param name The name of the variable
+     * @return The slot of the variable
+     */
+    public int define(String name) {
+        int slot = indexOf(name);
+
+        if(slot < 0) {
+            slots.add(name);
+            slot = slots.size() - 1;
+            names = slots.toArray(new String[slots.size()]);
+        }
+
+        return slot;
+    }
+
+    /**
+     * Gets the slot of a variable.
+     * @param name The name of the variable
+     * @return The slot of the variable, or -1 if it is not in the layout
+     */
+    public int indexOf(String name) {
+        String[] n = names;
+
+        for(int i = 0; i < n.length; ++i) {
+            if(n[i].equals(name))
+                return i;
+        }
+
+        return -1;
+    }
+
+    public int size() {
+        return names.length;
+    }
+}
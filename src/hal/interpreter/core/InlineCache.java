@@ -0,0 +1,148 @@
+package hal.interpreter.core;
+
+import hal.interpreter.Reference;
+import hal.interpreter.types.HalClass;
+import hal.interpreter.types.HalModule;
+import hal.interpreter.types.HalObject;
+
+
+/**
+ * Inline cache of a call site. It remembers the method found for the
+ * last classes of receivers seen by the site, so a repeated call only
+ * needs to check the own record of the receiver instead of walking all
+ * the records of its class hierarchy.
+ * The cache stores references, hence redefining a method is seen by
+ * the cache. Every entry keeps the version of its class, so adding a
+ * name to a class only invalidates the entries of the class and of the
+ * classes that inherit from it.
+ * Calls without receiver also remember the last name that was not found,
+ * so calls that end up in __method_missing__ do not repeat the lookups.
+ */
+public class InlineCache
+{
+    /** Number of classes remembered by a polymorphic site */
+    private static final int ENTRIES = 4;
+
+    private HalClass[] klasses;
+    private Reference[] methods;
+    private int[] versions;
+    private int size;
+
+    /** Class of self and module of the last call to a missing name */
+    private HalClass missingKlass;
+    private HalModule missingModule;
+    private int missingVersion;
+
+    public InlineCache() {
+        klasses = new HalClass[ENTRIES];
+        methods = new Reference[ENTRIES];
+        versions = new int[ENTRIES];
+        size = 0;
+    }
+
+    /**
+     * Looks up a method of an object.
+     * @param obj The receiver of the call
+     * @param name The name of the method
+     * @return The reference to the method, or null if it is not defined
+     */
+    public Reference lookup(HalObject obj, String name) {
+        ReferenceRecord own = obj.getOwnRecord();
+        HalClass klass = obj.getKlass();
+        ReferenceRecord shared = klass.getInstanceRecord();
+        Reference r;
+
+        if(own != null) {
+            // The lookup does not depend on the class of the receiver
+            if(own.parent != shared)
+                return own.getUnsafeReference(name);
+
+            r = own.getLocalReference(name);
+
+            if(r != null)
+                return r;
+        }
+
+        int version = klass.getVersion();
+        int i = 0;
+
+        while(i < size && klasses[i] != klass)
+            ++i;
+
+        if(i < size && versions[i] == version)
+            return methods[i];
+
+        r = klass.lookupInstanceMethod(name);
+
+        // Megamorphic sites stop caching new classes
+        if(r != null && i < ENTRIES) {
+            klasses[i] = klass;
+            methods[i] = r;
+            versions[i] = version;
+
+            if(i == size)
+                size++;
+        }
+
+        return r;
+    }
+
+    /**
+     * Gets the version of the shared records where the names of an object
+     * are looked up: the records of its class, and its own record if it is
+     * a class. Versions only grow, so their sum changes when one of them does.
+     */
+    private static int versionOf(HalObject obj) {
+        ReferenceRecord own = obj.getOwnRecord();
+        int version = obj.getKlass().getVersion();
+
+        if(own != null && own.shared)
+            version += own.owner.getVersion();
+
+        return version;
+    }
+
+    /**
+     * Whether the own record of an object may define a name that is not
+     * seen by the versions of the classes.
+     */
+    private static boolean mayDefine(HalObject obj, String name) {
+        ReferenceRecord own = obj.getOwnRecord();
+
+        if(own == null || own.shared)
+            return false;
+
+        return own.parent != obj.getKlass().getInstanceRecord() || own.getLocalReference(name) != null;
+    }
+
+    /**
+     * Whether a name called without receiver is known not to be defined,
+     * neither in the stack nor in self, its class or the current module.
+     * The records of the stack are always checked, since their names are
+     * not versioned.
+     * @param name The name of the method
+     * @param self The object calling the method
+     * @param record The current activation record
+     * @param module The current module
+     */
+    public boolean isMissing(String name, HalObject self, ReferenceRecord record, HalModule module) {
+        if(missingKlass != self.getKlass() || missingModule != module)
+            return false;
+
+        if(missingVersion != versionOf(self) + versionOf(module) || mayDefine(self, name)
+                || mayDefine(module, name))
+            return false;
+
+        return record.getUnsafeReference(name) == null;
+    }
+
+    /**
+     * Remembers that a name called without receiver is not defined.
+     * @see #isMissing(String, HalObject, ReferenceRecord, HalModule)
+     */
+    public void setMissing(HalObject self, HalModule module) {
+        missingKlass = self.getKlass();
+        missingModule = module;
+        missingVersion = versionOf(self) + versionOf(module);
+    }
+}
@@ -17,6 +17,6 @@ abstract public class InternalLambda extends HalMethod
     }
 
     public HalString str() { return new HalString("yield"); }
-    public HalBoolean bool() { return new HalBoolean(true); }
+    public HalBoolean bool() { return HalBoolean.TRUE; }
     public HalClass getKlass() { return HalMethod.klass; }
 }
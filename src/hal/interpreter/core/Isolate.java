@@ -0,0 +1,83 @@
+package hal.interpreter.core;
+
+import java.util.IdentityHashMap;
+
+/**
+ * Changes of an interpreter to the builtin classes and the other objects
+ * shared by all the interpreters. Their records are copied on write: a
+ * name defined by an interpreter in one of them is stored in a copy of the
+ * record that belongs to the interpreter, and it is looked up before the
+ * names of the shared record. The other interpreters do not see the change.
+ * While the interpreter runs in a thread, its copies are registered in the
+ * shared records, so a lookup finds the copy of its thread without looking
+ * up the interpreter of the thread.
+ */
+public class Isolate
+{
+    /** Thread the interpreter is running in, or null if it is not running */
+    volatile Thread thread;
+
+    /** Copies of the shared records, by shared record */
+    private IdentityHashMap<ReferenceRecord, ReferenceRecord> copies =
+            new IdentityHashMap<ReferenceRecord, ReferenceRecord>();
+    /** Tables of lookups of the interpreter, by owner */
+    private IdentityHashMap<Object, Object> tables = new IdentityHashMap<Object, Object>();
+
+    /**
+     * Gets the isolate running in the current thread, if it has copied any
+     * of the records of a chain.
+     * @param record The first record of the chain
+     * @return The isolate, or null if the shared records can be used as they are
+     */
+    public static Isolate of(ReferenceRecord record) {
+        for(; record != null; record = record.parent) {
+            Isolate isolate = record.getIsolate();
+
+            if(isolate != null)
+                return isolate;
+        }
+
+        return null;
+    }
+
+    /** Registers the copies of the isolate in the shared records, when its interpreter starts running in a thread. */
+    public void bind() {
+        thread = Thread.currentThread();
+
+        for(ReferenceRecord record : copies.keySet())
+            record.addCopy(this, copies.get(record));
+    }
+
+    /** Removes the copies of the isolate from the shared records, when its interpreter stops running. */
+    public void unbind() {
+        for(ReferenceRecord record : copies.keySet())
+            record.removeCopy(this);
+
+        thread = null;
+    }
+
+    /** Gets the copy of a shared record, which is created the first time. */
+    public ReferenceRecord copyOf(ReferenceRecord record) {
+        ReferenceRecord copy = copies.get(record);
+
+        if(copy == null) {
+            copy = new ReferenceRecord();
+            copy.shared = record.shared;
+            // The names defined in the copy change the version of the class
+            copy.owner = record.owner;
+            copies.put(record, copy);
+            record.addCopy(this, copy);
+        }
+
+        return copy;
+    }
+
+    /** Gets a table of lookups of the isolate, e.g. the table of methods of a class. */
+    public Object getTable(Object owner) {
+        return tables.get(owner);
+    }
+
+    public void setTable(Object owner, Object table) {
+        tables.put(owner, table);
+    }
+}
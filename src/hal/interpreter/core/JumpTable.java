@@ -0,0 +1,47 @@
+package hal.interpreter.core;
+
+import java.util.HashMap;
+
+
+/**
+ * Jump table of a case statement. It maps the values of the literals of
+ * the first clauses to the index of their clause, so the clause of an
+ * object compared by its value is found with a single lookup instead of
+ * calling __eq__ for every clause.
+ * Only the clauses before the first one that is not in the table are
+ * covered, since the rest of them have to be evaluated in order.
+ */
+public class JumpTable
+{
+    private HashMap<Object, Integer> clauses;
+    /** Number of clauses covered by the table */
+    private int size;
+
+    public JumpTable() {
+        clauses = new HashMap<Object, Integer>();
+        size = 0;
+    }
+
+    /** Adds the value of the literal of the next clause. */
+    public void add(Object value) {
+        // The first clause with a value is the one that matches
+        if(!clauses.containsKey(value))
+            clauses.put(value, size);
+
+        size++;
+    }
+
+    /** Gets the number of clauses covered by the table. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Looks up the clause of a value.
+     * @return The index of the clause, or -1 if no clause covered by the table matches
+     */
+    public int lookup(Object value) {
+        Integer clause = clauses.get(value);
+        return clause == null ? -1 : clause;
+    }
+}
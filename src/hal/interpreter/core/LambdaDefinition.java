@@ -17,6 +17,18 @@ public class LambdaDefinition extends MethodDefinition
         this.context = context;
     }
 
+    public LambdaDefinition(HalModule module, ReferenceRecord context, FrameLayout layout,
+                            Params.Param...params) {
+        this(module, context, params);
+        this.layout = layout;
+    }
+
+    /** Creates a lambda from a template, binding the record where it is defined. */
+    public LambdaDefinition(LambdaDefinition template, HalModule module, ReferenceRecord context) {
+        super(template, module, null);
+        this.context = context;
+    }
+
     public LambdaDefinition(MethodDefinition def) {
         module = null;
         klass = null;
@@ -1,5 +1,6 @@
 package hal.interpreter.core;
 
+import hal.interpreter.Reference;
 import hal.interpreter.types.HalModule;
 import hal.interpreter.types.HalObject;
 
@@ -10,6 +11,12 @@ public class MethodDefinition
     public HalObject klass;
     public String name;
     public Params params;
+    protected FrameLayout layout;
+    private int[] paramSlots;
+
+    /** Method overridden by this one, and the version of the parent class it was found with */
+    private Reference zuper;
+    private int superVersion = -1;
 
     public MethodDefinition() { }
 
@@ -20,6 +27,77 @@ public class MethodDefinition
         this.params = new Params(params);
     }
 
+    public MethodDefinition(HalModule module, HalObject klass, String name, FrameLayout layout,
+                            Params.Param...params) {
+        this(module, klass, name, params);
+        this.layout = layout;
+    }
+
+    /**
+     * Creates a definition from a template, which has the params and the
+     * layout of the definition but not the module nor the class.
+     */
+    public MethodDefinition(MethodDefinition template, HalModule module, HalObject klass) {
+        this.module = module;
+        this.klass = klass;
+        this.name = template.name;
+        this.params = template.params;
+        this.layout = template.getLayout();
+        this.paramSlots = template.getParamSlots();
+    }
+
+    /** Gets the layout of the activation record of the method. */
+    public FrameLayout getLayout() {
+        if(layout == null) {
+            layout = new FrameLayout(isMethod());
+
+            for(String name : params.signature.keySet())
+                layout.define(name);
+        }
+
+        return layout;
+    }
+
+    /** Gets the slots of the positional params in the activation record. */
+    public int[] getParamSlots() {
+        if(paramSlots == null) {
+            int[] slots = new int[params.positional.size()];
+
+            for(int i = 0; i < slots.length; ++i)
+                slots[i] = getLayout().indexOf(params.positional.get(i));
+
+            paramSlots = slots;
+        }
+
+        return paramSlots;
+    }
+
+    /**
+     * Gets the method overridden by this one, i.e. the method with the
+     * same name in the parents of its class. It is only looked up again
+     * when the version of the parent class changes.
+     * @return The reference to the method, or null if there is none
+     */
+    public Reference getSuper() {
+        ReferenceRecord parent = klass.getInstanceRecord().parent;
+
+        if(parent == null)
+            return null;
+
+        // Records that are not shared are not versioned
+        if(!parent.shared)
+            return parent.getUnsafeReference(name);
+
+        int version = parent.owner.getVersion();
+
+        if(superVersion != version) {
+            zuper = parent.getUnsafeReference(name);
+            superVersion = version;
+        }
+
+        return zuper;
+    }
+
     public int getArity() {
         return params.arity;
     }
@@ -23,6 +23,8 @@ public class Params {
     public int after_group;
     public int unpositional_keywords;
     public int arity;
+    /** Whether all the params are positional, so arguments can be passed by position only */
+    public boolean positional_only;
 
     static public class Param {
         enum TYPE { POSITIONAL, PARAM_GROUP, KEYWORD, KEYWORD_GROUP }
@@ -113,6 +115,8 @@ public class Params {
 
             signature.put(param.name, true);
         }
+
+        positional_only = group_params == null && group_keywords == null && keywords.isEmpty();
     }
 
     public Arguments fill(Arguments args) {
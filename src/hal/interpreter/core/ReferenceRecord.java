@@ -1,33 +1,348 @@
 package hal.interpreter.core;
 
+import hal.interpreter.Interpreter;
 import hal.interpreter.Reference;
 import hal.interpreter.exceptions.NameException;
+import hal.interpreter.types.HalClass;
 import hal.interpreter.types.HalMethod;
 import hal.interpreter.types.HalObject;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 
 
 public class ReferenceRecord
 {
     public ReferenceRecord parent;
-    public HashMap<String, Reference> record;
+
+    /** Initial capacity of the table of names */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * Table of the names defined by name, with open addressing: a name is
+     * stored in the first free entry from the position given by its hash.
+     * Every entry takes two elements, the name and its reference.
+     * The table is created when the first name is defined.
+     * A record is only written by one thread: the records of the builtin
+     * classes while Kernel is initialized, and then each interpreter in
+     * its own records and copies. Other threads may read the shared
+     * records, so the table is published through a volatile field after
+     * every write: a reader sees all the names defined before it reads it.
+     */
+    private volatile Object[] table;
+    /** Number of names in the table */
+    private int count;
+    /**
+     * Bits of the hashes of the names in the table (see {@link #bitOf(int)}).
+     * Most lookups in the records of objects are for names of their class,
+     * and they are rejected by the bits without reading the table.
+     */
+    private long bits;
+
+    /** Whether the record is shared by the instances of a class */
+    public boolean shared = false;
+    /** Class whose version changes with the record, if it is shared */
+    public HalClass owner;
+
+    /**
+     * Whether the record belongs to an object shared by all the interpreters,
+     * like a builtin class. The interpreters do not write in it, but in their
+     * copy of the record (see {@link Isolate}).
+     */
+    public boolean isolated = false;
+    /**
+     * Copies of the record of the interpreters that are running, as pairs
+     * of isolate and copy, or null if there is none.
+     */
+    private volatile Object[] copies;
+
+    /** Names of the slots of the record (only for activation records) */
+    private String[] names;
+    /** Slots of the record. A null slot means the variable is not defined */
+    private Reference[] slots;
+    /** References created by the record for its slots, kept when the record is reused */
+    private Reference[] owned;
+
+    /**
+     * Whether the record may be used after its activation, e.g. by a
+     * lambda defined in it. Such a record can not be reused.
+     */
+    public boolean captured = false;
 
     public ReferenceRecord() {
         parent = null;
-        record = null;
     }
 
     public ReferenceRecord(ReferenceRecord parent, Reference... builtins) {
         this.parent = parent;
-        record = new HashMap<String, Reference>();
 
+        // The map of names is created when the first name is defined
         for(Reference builtin : builtins)
             defineBuiltin(builtin);
     }
 
+    /**
+     * Creates an activation record. The variables of the layout are
+     * stored in slots, the rest of them are stored by name.
+     * @param parent The enclosing record
+     * @param layout The layout of the frame
+     */
+    public ReferenceRecord(ReferenceRecord parent, FrameLayout layout) {
+        this.parent = parent;
+        names = layout.names;
+        slots = new Reference[names.length];
+        owned = new Reference[names.length];
+    }
+
+    /** Whether the record can be reused as an activation record of the layout. */
+    public boolean isReusable(FrameLayout layout) {
+        return !captured && names == layout.names;
+    }
+
+    /**
+     * Undefines all the variables of an activation record, so it can be
+     * reused by another activation. The references created for its slots
+     * are kept for the next activation.
+     */
+    public void clear() {
+        for(int i = 0; i < slots.length; ++i) {
+            slots[i] = null;
+
+            if(owned[i] != null)
+                owned[i].data = null;
+        }
+
+        table = null;
+        count = 0;
+        bits = 0;
+    }
+
+    private int slotOf(String name) {
+        if(names == null)
+            return -1;
+
+        for(int i = 0; i < names.length; ++i) {
+            if(names[i].equals(name))
+                return i;
+        }
+
+        return -1;
+    }
+
+    /** Gets a reference defined in this record, without looking at the parents. */
+    public Reference getLocalReference(String name) {
+        if(names != null || copies != null) {
+            Reference r = getSpecialReference(name);
+
+            if(r != null)
+                return r;
+        }
+
+        int hash = name.hashCode();
+
+        if((bits & bitOf(hash)) == 0)
+            return null;
+
+        Object[] t = table;
+        return (Reference) t[indexOf(t, name, hash) + 1];
+    }
+
+    /** Gets a reference stored in a slot or in the copy of the record of the current interpreter. */
+    private Reference getSpecialReference(String name) {
+        int slot = slotOf(name);
+
+        if(slot >= 0)
+            return slots[slot];
+
+        Object[] c = copies;
+
+        if(c != null) {
+            Thread thread = Thread.currentThread();
+
+            for(int i = 0; i < c.length; i += 2) {
+                if(((Isolate) c[i]).thread == thread)
+                    return ((ReferenceRecord) c[i + 1]).getLocalReference(name);
+            }
+        }
+
+        return null;
+    }
+
+    /** Gets the isolate of the current thread, if it has a copy of the record. */
+    Isolate getIsolate() {
+        Object[] c = copies;
+
+        if(c != null) {
+            Thread thread = Thread.currentThread();
+
+            for(int i = 0; i < c.length; i += 2) {
+                if(((Isolate) c[i]).thread == thread)
+                    return (Isolate) c[i];
+            }
+        }
+
+        return null;
+    }
+
+    synchronized void addCopy(Isolate isolate, ReferenceRecord copy) {
+        Object[] c = copies;
+        int n = c == null ? 0 : c.length;
+        Object[] added = new Object[n + 2];
+
+        if(c != null)
+            System.arraycopy(c, 0, added, 0, n);
+
+        added[n] = isolate;
+        added[n + 1] = copy;
+        copies = added;
+    }
+
+    synchronized void removeCopy(Isolate isolate) {
+        Object[] c = copies;
+
+        for(int i = 0; i < c.length; i += 2) {
+            if(c[i] == isolate) {
+                Object[] removed = new Object[c.length - 2];
+                System.arraycopy(c, 0, removed, 0, i);
+                System.arraycopy(c, i + 2, removed, i, c.length - i - 2);
+                copies = removed.length == 0 ? null : removed;
+                return;
+            }
+        }
+    }
+
+    /** Mixes the hash of a name, so similar names get different entries. */
+    private static int mix(int hash) {
+        return hash * 0x9E3779B9;
+    }
+
+    /** Gets the bit of a hash in the bits of the names, from the high bits of its mix. */
+    private static long bitOf(int hash) {
+        return 1L << (mix(hash) >>> 26);
+    }
+
+    /**
+     * Gets the index of the entry of a name in a table, or of the free
+     * entry where it would be stored.
+     */
+    private static int indexOf(Object[] t, String name, int hash) {
+        int mask = t.length - 2;
+        int mixed = mix(hash);
+        int i = ((mixed ^ (mixed >>> 16)) << 1) & mask;
+        Object key;
+
+        while((key = t[i]) != null) {
+            if(key == name || (key.hashCode() == hash && key.equals(name)))
+                return i;
+
+            i = (i + 2) & mask;
+        }
+
+        return i;
+    }
+
+    private void put(String name, Reference ref) {
+        Object[] t = table;
+
+        if(t == null) {
+            t = new Object[INITIAL_CAPACITY * 2];
+        } else if((count + 1) * 4 > t.length) {
+            // The table is kept at most half full
+            Object[] old = t;
+            t = new Object[old.length * 2];
+
+            for(int i = 0; i < old.length; i += 2) {
+                if(old[i] != null) {
+                    int j = indexOf(t, (String) old[i], old[i].hashCode());
+                    t[j] = old[i];
+                    t[j + 1] = old[i + 1];
+                }
+            }
+        }
+
+        int hash = name.hashCode();
+        int i = indexOf(t, name, hash);
+
+        // The reference is stored before the name, so a name is never found without it
+        t[i + 1] = ref;
+
+        if(t[i] == null) {
+            t[i] = name;
+            count++;
+        }
+
+        bits |= bitOf(hash);
+        table = t;
+    }
+
+    /** Gets the reference stored in a slot (null if it is not defined). */
+    public Reference getSlot(int slot) {
+        return slots[slot];
+    }
+
+    /** Defines the value of the variable stored in a slot. */
+    public void defineSlot(int slot, HalObject value) {
+        Reference r = slots[slot];
+
+        if(r == null) {
+            r = owned[slot];
+
+            if(r == null) {
+                r = new Reference(value);
+                owned[slot] = r;
+            } else {
+                r.data = value;
+            }
+
+            slots[slot] = r;
+        } else {
+            r.data = value;
+        }
+    }
+
+    /** Undefines the variable stored in a slot. */
+    public void undefineSlot(int slot) {
+        slots[slot] = null;
+
+        if(owned[slot] != null)
+            owned[slot].data = null;
+    }
+
+    /**
+     * Gets the record where the names defined by the current interpreter
+     * are stored: its copy of the record of a builtin class, or the record.
+     */
+    private ReferenceRecord writable() {
+        if(isolated) {
+            Interpreter interpreter = Interpreter.current();
+
+            // The builtin classes are defined without interpreter
+            if(interpreter != null)
+                return interpreter.getIsolate().copyOf(this);
+        }
+
+        return this;
+    }
+
     public void defineReference(String name, Reference ref) {
-        record.put(name, ref);
+        ReferenceRecord record = writable();
+
+        if(record != this) {
+            record.defineReference(name, ref);
+            return;
+        }
+
+        int slot = slotOf(name);
+
+        if(slot >= 0) {
+            slots[slot] = ref;
+            return;
+        }
+
+        put(name, ref);
+
+        if(shared)
+            owner.changed();
     }
 
     /** Defines the value of a variable. If the variable does not
@@ -37,37 +352,44 @@ public class ReferenceRecord
      * @param value The value of the variable
      */
     public void defineVariable(String name, HalObject value) {
-        Reference r = record.get(name);
-        if (r == null) record.put(name, new Reference(value)); // New definition
-        else r.data = value; // Use the previous data
-    }
+        ReferenceRecord record = writable();
 
-    public HalObject getUnsafeVariable(String name) {
-        Reference r = record.get(name);
+        if(record != this) {
+            record.defineVariable(name, value);
+            return;
+        }
 
-        if(r != null)
-            return r.data;
+        Reference r = getLocalReference(name);
+        if (r == null) defineReference(name, new Reference(value)); // New definition
+        else {
+            HalObject previous = r.data;
+            r.data = value; // Use the previous data
 
-        if(parent != null)
-            return parent.getUnsafeVariable(name);
+            // A redefined method of a class invalidates what was computed with it
+            if(shared && (previous instanceof HalMethod || value instanceof HalMethod))
+                owner.changed();
+        }
+    }
 
-        return null;
+    public HalObject getUnsafeVariable(String name) {
+        Reference r = getUnsafeReference(name);
+        return r == null ? null : r.data;
     }
 
     public Reference getUnsafeReference(String name) {
-        Reference r = record.get(name);
-
-        if(r != null)
-            return r;
+        // The records are walked in a loop, so the lookup can be inlined by the JIT
+        for(ReferenceRecord record = this; record != null; record = record.parent) {
+            Reference r = record.getLocalReference(name);
 
-        if(parent != null)
-            return parent.getUnsafeReference(name);
+            if(r != null)
+                return r;
+        }
 
         return null;
     }
 
     public void defineReturn(HalObject obj) {
-        Reference r = record.get("return");
+        Reference r = getLocalReference("return");
 
         if(r != null) {
             r.data = obj;
@@ -88,13 +410,9 @@ public class ReferenceRecord
     }
 
     public Reference getReference(String name) {
-        Reference r = record.get(name);
-        if (r == null) {
-            if(parent != null)
-                return parent.getReference(name);
-
+        Reference r = getUnsafeReference(name);
+        if (r == null)
             throw new NameException(name);
-        }
         return r;
     }
 
@@ -109,6 +427,21 @@ public class ReferenceRecord
     }
 
     public boolean hasVariable(String name) {
-        return record.containsKey(name);
+        return getLocalReference(name) != null;
+    }
+
+    /** Gets the references defined by name in this record, without the ones of the copies. */
+    public List<Reference> getReferences() {
+        ArrayList<Reference> references = new ArrayList<Reference>();
+        Object[] t = table;
+
+        if(t != null) {
+            for(int i = 0; i < t.length; i += 2) {
+                if(t[i] != null)
+                    references.add((Reference) t[i + 1]);
+            }
+        }
+
+        return references;
     }
 }
@@ -0,0 +1,329 @@
+package hal.interpreter.core.data;
+
+import hal.interpreter.types.HalObject;
+import hal.interpreter.types.numeric.HalFloat;
+import hal.interpreter.types.numeric.HalInteger;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Storage of the elements of an array. While all the elements are
+ * integers (or all of them are floats) they are kept unboxed in an
+ * int[] (or a double[]), which takes much less memory than a list of
+ * objects. Storing an element of another type changes the storage to
+ * a generic one, and it never goes back.
+ * Unboxed elements are boxed again when they are read. Integers can
+ * not be modified, so a new box can not be told apart. Floats are only
+ * unboxed when nothing has been defined in them, and the box of a float
+ * is kept once it has been read, so reading it again gives the same
+ * object (e.g. with the methods defined in it afterwards).
+ */
+public class ArrayStorage extends AbstractList<HalObject> implements RandomAccess
+{
+    public enum Kind { INT, FLOAT, OBJECT }
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private Kind kind;
+    private int[] ints;
+    private double[] floats;
+    /** Boxes of the floats that have been read, created on the first read */
+    private HalFloat[] boxes;
+    private HalObject[] objects;
+    private int size;
+
+    public ArrayStorage() {
+        kind = Kind.INT;
+        ints = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /** Gets the unboxed integers. Only valid for INT storage, up to size(). */
+    public int[] getInts() {
+        return ints;
+    }
+
+    /** Gets the unboxed floats. Only valid for FLOAT storage, up to size(). */
+    public double[] getFloats() {
+        return floats;
+    }
+
+    private static boolean isUnboxedFloat(HalObject element) {
+        return element instanceof HalFloat && element.getOwnRecord() == null;
+    }
+
+    private boolean fits(HalObject element) {
+        switch(kind) {
+            case INT: return element instanceof HalInteger;
+            case FLOAT: return isUnboxedFloat(element);
+            default: return true;
+        }
+    }
+
+    /** Adapts the storage so the element can be stored in it. */
+    private void prepare(HalObject element) {
+        if(fits(element))
+            return;
+
+        // An empty array takes the kind of its first element
+        if(size == 0) {
+            ints = null;
+            floats = null;
+            boxes = null;
+            objects = null;
+
+            if(element instanceof HalInteger) {
+                kind = Kind.INT;
+                ints = new int[INITIAL_CAPACITY];
+            } else if(isUnboxedFloat(element)) {
+                kind = Kind.FLOAT;
+                floats = new double[INITIAL_CAPACITY];
+            } else {
+                kind = Kind.OBJECT;
+                objects = new HalObject[INITIAL_CAPACITY];
+            }
+
+            return;
+        }
+
+        HalObject[] boxed = new HalObject[Math.max(size * 2, INITIAL_CAPACITY)];
+        for(int i = 0; i < size; ++i)
+            boxed[i] = get(i);
+
+        kind = Kind.OBJECT;
+        objects = boxed;
+        ints = null;
+        floats = null;
+        boxes = null;
+    }
+
+    private int capacity() {
+        switch(kind) {
+            case INT: return ints.length;
+            case FLOAT: return floats.length;
+            default: return objects.length;
+        }
+    }
+
+    private void grow() {
+        int capacity = capacity() * 2;
+
+        switch(kind) {
+            case INT: ints = Arrays.copyOf(ints, capacity); break;
+            case FLOAT:
+                floats = Arrays.copyOf(floats, capacity);
+
+                if(boxes != null)
+                    boxes = Arrays.copyOf(boxes, capacity);
+                break;
+            default: objects = Arrays.copyOf(objects, capacity);
+        }
+    }
+
+    private void store(int index, HalObject element) {
+        switch(kind) {
+            case INT: ints[index] = ((HalInteger) element).value; break;
+            case FLOAT:
+                floats[index] = ((HalFloat) element).value;
+
+                // The element is the box of the float
+                if(boxes != null)
+                    boxes[index] = (HalFloat) element;
+                break;
+            default: objects[index] = element;
+        }
+    }
+
+    /** Gets the box of a float, which is created the first time it is read. */
+    private HalFloat box(int index) {
+        if(boxes == null)
+            boxes = new HalFloat[floats.length];
+
+        HalFloat box = boxes[index];
+
+        if(box == null) {
+            box = new HalFloat(floats[index]);
+            boxes[index] = box;
+        }
+
+        return box;
+    }
+
+    /** Gets an element without keeping the box of a float, e.g. an element that is replaced. */
+    private HalObject peek(int index) {
+        checkIndex(index);
+
+        switch(kind) {
+            case INT: return HalInteger.valueOf(ints[index]);
+            case FLOAT: return boxes != null && boxes[index] != null ? boxes[index] : new HalFloat(floats[index]);
+            default: return objects[index];
+        }
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    @Override
+    public HalObject get(int index) {
+        checkIndex(index);
+
+        switch(kind) {
+            case INT: return HalInteger.valueOf(ints[index]);
+            case FLOAT: return box(index);
+            default: return objects[index];
+        }
+    }
+
+    @Override
+    public HalObject set(int index, HalObject element) {
+        HalObject previous = peek(index);
+        prepare(element);
+        store(index, element);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, HalObject element) {
+        if(index < 0 || index > size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+        prepare(element);
+
+        if(size == capacity())
+            grow();
+
+        if(index < size) {
+            switch(kind) {
+                case INT: System.arraycopy(ints, index, ints, index + 1, size - index); break;
+                case FLOAT:
+                    System.arraycopy(floats, index, floats, index + 1, size - index);
+
+                    if(boxes != null)
+                        System.arraycopy(boxes, index, boxes, index + 1, size - index);
+                    break;
+                default: System.arraycopy(objects, index, objects, index + 1, size - index);
+            }
+        }
+
+        store(index, element);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public HalObject remove(int index) {
+        HalObject previous = peek(index);
+        int moved = size - index - 1;
+
+        switch(kind) {
+            case INT: System.arraycopy(ints, index + 1, ints, index, moved); break;
+            case FLOAT:
+                System.arraycopy(floats, index + 1, floats, index, moved);
+
+                if(boxes != null) {
+                    System.arraycopy(boxes, index + 1, boxes, index, moved);
+                    boxes[size - 1] = null;
+                }
+                break;
+            default:
+                System.arraycopy(objects, index + 1, objects, index, moved);
+                objects[size - 1] = null;
+        }
+
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        if(kind == Kind.OBJECT)
+            Arrays.fill(objects, 0, size, null);
+
+        boxes = null;
+
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** Sorts the unboxed elements by their value. Only valid for INT and FLOAT storage. */
+    public void sortUnboxed() {
+        if(kind == Kind.INT)
+            Arrays.sort(ints, 0, size);
+        else if(boxes == null)
+            Arrays.sort(floats, 0, size);
+        else {
+            // The boxes that have been read are sorted with their floats
+            for(int i = 0; i < size; ++i)
+                box(i);
+
+            Arrays.sort(boxes, 0, size, BY_VALUE);
+
+            for(int i = 0; i < size; ++i)
+                floats[i] = boxes[i].value;
+        }
+
+        modCount++;
+    }
+
+    /** Orders the boxes of floats like Arrays.sort orders the floats. */
+    private static final Comparator<HalFloat> BY_VALUE = new Comparator<HalFloat>() {
+        public int compare(HalFloat x, HalFloat y) {
+            return Double.compare(x.value, y.value);
+        }
+    };
+
+    /**
+     * Iterates the elements reading the unboxed arrays directly, as
+     * each, map and filter do for every element of an array.
+     */
+    @Override
+    public Iterator<HalObject> iterator() {
+        return new Iterator<HalObject>() {
+            private int cursor = 0;
+            private int expected = modCount;
+
+            public boolean hasNext() {
+                return cursor < size;
+            }
+
+            public HalObject next() {
+                if(modCount != expected)
+                    throw new ConcurrentModificationException();
+
+                if(cursor >= size)
+                    throw new NoSuchElementException();
+
+                int i = cursor++;
+
+                // The kind is checked every time, the block may store another kind of element
+                switch(kind) {
+                    case INT: return HalInteger.valueOf(ints[i]);
+                    case FLOAT: return box(i);
+                    default: return objects[i];
+                }
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -3,7 +3,7 @@ package hal.interpreter.exceptions;
 
 import hal.interpreter.types.HalObject;
 
-public class AttributeException extends RuntimeException
+public class AttributeException extends HalException
 {
     public AttributeException(HalObject obj, String attr) {
         super(obj + " has no attribute '" + attr + "'");
@@ -0,0 +1,19 @@
+package hal.interpreter.exceptions;
+
+
+/**
+ * Error raised while a HAL program runs. These errors do not fill in the
+ * stack trace of Java, which is expensive and is never shown: the stack
+ * trace of HAL is taken from the stack of the interpreter when the error
+ * is handled.
+ */
+public class HalException extends RuntimeException
+{
+    public HalException() {
+        this(null);
+    }
+
+    public HalException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,7 +1,7 @@
 package hal.interpreter.exceptions;
 
 
-public class InvalidArgumentsException extends RuntimeException
+public class InvalidArgumentsException extends HalException
 {
     public InvalidArgumentsException() {
         super("Invalid arguments");
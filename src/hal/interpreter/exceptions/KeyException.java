@@ -1,7 +1,7 @@
 package hal.interpreter.exceptions;
 
 
-public class KeyException extends RuntimeException
+public class KeyException extends HalException
 {
     public KeyException(String msg) {
         super(msg);
@@ -1,7 +1,7 @@
 package hal.interpreter.exceptions;
 
 
-public class NameException extends RuntimeException {
+public class NameException extends HalException {
     public NameException(String name) {
         super("Name " + name + " not defined");
     }
@@ -1,7 +1,7 @@
 package hal.interpreter.exceptions;
 
 
-public class NewNotSupportedException extends RuntimeException
+public class NewNotSupportedException extends HalException
 {
     public NewNotSupportedException() {
         super("Method new not supported");
@@ -3,7 +3,7 @@ package hal.interpreter.exceptions;
 /**
  * Created by hector on 5/23/14.
  */
-public class OSException extends RuntimeException {
+public class OSException extends HalException {
     public OSException(String msg) {
         super(msg);
     }
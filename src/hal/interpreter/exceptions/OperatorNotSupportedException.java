@@ -1,7 +1,7 @@
 package hal.interpreter.exceptions;
 
 
-public class OperatorNotSupportedException extends RuntimeException
+public class OperatorNotSupportedException extends HalException
 {
 
 }
@@ -4,7 +4,7 @@ package hal.interpreter.exceptions;
 /**
  * Created by hector0193 on 09/04/14.
  */
-public class SyntaxException extends RuntimeException
+public class SyntaxException extends HalException
 {
     public SyntaxException(String msg) {
         super(msg);
@@ -1,7 +1,7 @@
 package hal.interpreter.exceptions;
 
 
-public class TypeException extends RuntimeException
+public class TypeException extends HalException
 {
     public TypeException() {
         this("Unknown.");
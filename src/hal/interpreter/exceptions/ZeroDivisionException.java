@@ -1,7 +1,7 @@
 package hal.interpreter.exceptions;
 
 
-public class ZeroDivisionException extends RuntimeException {
+public class ZeroDivisionException extends HalException {
     public ZeroDivisionException() {
         this("Can't divide by zero.");
     }
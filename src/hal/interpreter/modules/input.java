@@ -45,7 +45,7 @@ public class input extends HalModule {
                     new Params.Param("key")) {
                 @Override
                 public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-                    return new HalBoolean(Keyboard.isKeyDown(((HalInteger)args.get("key")).value));
+                    return HalBoolean.valueOf(Keyboard.isKeyDown(((HalInteger)args.get("key")).value));
                 }
             }));
 
@@ -94,7 +94,7 @@ public class input extends HalModule {
                             Key keyState = keyMap.get(((HalInteger)key).value);
 
                             if(keyState.status != KeyStatus.UP && keyState.status != KeyStatus.DOWN_UPDATED) {
-                                lambda.call(this, null, key, new HalBoolean(keyState.status == KeyStatus.DOWN_STILL));
+                                lambda.call(this, null, key, HalBoolean.valueOf(keyState.status == KeyStatus.DOWN_STILL));
 
                                 if(keyState.status == KeyStatus.DOWN)
                                     keyState.status = KeyStatus.DOWN_UPDATED;
@@ -111,14 +111,19 @@ public class input extends HalModule {
             }));
 
             // Define keys
-            stat.defineVariable("KEY_LEFT", new HalInteger(Keyboard.KEY_LEFT));
-            stat.defineVariable("KEY_RIGHT", new HalInteger(Keyboard.KEY_RIGHT));
-            stat.defineVariable("KEY_UP", new HalInteger(Keyboard.KEY_UP));
-            stat.defineVariable("KEY_DOWN", new HalInteger(Keyboard.KEY_DOWN));
-            stat.defineVariable("KEY_SPACE", new HalInteger(Keyboard.KEY_SPACE));
+            stat.defineVariable("KEY_LEFT", HalInteger.valueOf(Keyboard.KEY_LEFT));
+            stat.defineVariable("KEY_RIGHT", HalInteger.valueOf(Keyboard.KEY_RIGHT));
+            stat.defineVariable("KEY_UP", HalInteger.valueOf(Keyboard.KEY_UP));
+            stat.defineVariable("KEY_DOWN", HalInteger.valueOf(Keyboard.KEY_DOWN));
+            stat.defineVariable("KEY_SPACE", HalInteger.valueOf(Keyboard.KEY_SPACE));
         }
     };
 
+    static {
+        // The class is shared by the interpreters that import the module
+        HalKeyboard.isolate();
+    }
+
     public input(HalPackage pkg){
         super("input", pkg);
 
@@ -53,7 +53,7 @@ public class opengl extends HalModule {
         ReferenceRecord module = getInstanceRecord();
 
         // GL variables
-        module.defineVariable("DEPTH_TEST", new HalInteger(GL11.GL_DEPTH_TEST));
+        module.defineVariable("DEPTH_TEST", HalInteger.valueOf(GL11.GL_DEPTH_TEST));
 
         module.defineMethod(new Builtin("display",
                 new Params.Param("title"),
@@ -68,7 +68,7 @@ public class opengl extends HalModule {
                 HalObject location = args.get("location");
 
                 try {
-                    Display.setTitle(title.value);
+                    Display.setTitle(title.getValue());
                     Display.setDisplayMode(new DisplayMode(width.value, height.value));
                     Display.setVSyncEnabled(true);
 
@@ -106,7 +106,7 @@ public class opengl extends HalModule {
         });
 
         module.defineMethod(new Builtin("draw",
-                new Params.Keyword("fps", new HalInteger(60))) {
+                new Params.Keyword("fps", HalInteger.valueOf(60))) {
             @Override
             public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
                 int fps = ((HalInteger) args.get("fps")).value;
@@ -118,7 +118,7 @@ public class opengl extends HalModule {
                     int delta = getDelta();
 
                     // New calculations and drawing are performed by HAL using delta
-                    lambda.call(instance, null, new HalInteger(delta));
+                    lambda.call(instance, null, HalInteger.valueOf(delta));
 
                     // Update and sync
                     updateFPS();
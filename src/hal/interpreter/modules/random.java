@@ -24,7 +24,7 @@ public class random extends HalModule {
         module.defineMethod(new Builtin("integer") {
             @Override
             public HalObject call(HalObject instance, HalMethod lambda, Arguments args) {
-                return new HalInteger(generator.nextInt());
+                return HalInteger.valueOf(generator.nextInt());
             }
         });
     }
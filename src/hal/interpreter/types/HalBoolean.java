@@ -7,14 +7,30 @@ public class HalBoolean extends HalObject<Boolean>
 {
     public static final HalClass klass = new HalClass("Boolean", HalObject.klass);
 
+    public static final HalBoolean TRUE = new HalBoolean(true);
+    public static final HalBoolean FALSE = new HalBoolean(false);
+
+    static {
+        TRUE.freeze();
+        FALSE.freeze();
+    }
+
+    /** Gets the shared boolean object of a value. */
+    public static HalBoolean valueOf(boolean b) {
+        return b ? TRUE : FALSE;
+    }
+
     public HalBoolean(Boolean b) {
         super(b);
     }
 
+    @Override
+    protected boolean hasLazyRecord() { return true; }
+
     public Boolean toBoolean() {
         return value;
     }
     public HalString str() { return new HalString(value ? "true" : "false"); }
-    public HalBoolean bool() { return new HalBoolean(value); }
+    public HalBoolean bool() { return this; }
     public HalClass getKlass() { return HalBoolean.klass; }
 }
@@ -4,20 +4,61 @@ package hal.interpreter.types;
 import hal.interpreter.Reference;
 import hal.interpreter.core.Arguments;
 import hal.interpreter.core.Builtin;
+import hal.interpreter.core.Isolate;
 import hal.interpreter.core.ReferenceRecord;
 import hal.interpreter.exceptions.NewNotSupportedException;
 import hal.interpreter.types.enumerable.HalString;
 import hal.interpreter.types.numeric.HalInteger;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class HalClass extends HalObject<String>
 {
     public static final HalClass klass = new HalClass("Class", null) {
         public void initRecord() {}
     };
 
+    /** Marks the names that are not defined in the table of methods */
+    private static final Reference MISSING = new Reference(null);
+
     protected HalClass parent;
     private ReferenceRecord instRecord;
 
+    /**
+     * Table of the methods of the instances by name, including the inherited
+     * ones. It is filled by the lookups of all the interpreters, except the
+     * ones that have changed a builtin class, which keep their own tables.
+     */
+    private static class MethodTable extends ConcurrentHashMap<String, Reference> {
+        /** Version of the class the table is filled with */
+        final int version;
+
+        MethodTable(int version) {
+            this.version = version;
+        }
+    }
+
+    private volatile MethodTable methods;
+
+    /** Number of changes to the classes, which gives their versions */
+    private static int changes = 0;
+
+    /**
+     * Version of the class. It changes every time a name is added to the
+     * records of the class or of the classes its records inherit from, or
+     * a method of them is redefined, so the lookups cached with a version
+     * can detect that they could give a different result.
+     */
+    private volatile int version = 0;
+
+    /** Classes whose records inherit from the records of the class */
+    private ArrayList<WeakReference<HalClass>> dependents = new ArrayList<WeakReference<HalClass>>();
+    /** Number of dependents when the ones that were collected are removed */
+    private int purgeAt = 8;
+
     public HalClass(String name, HalClass parent, Reference... builtins) {
         this(name, parent, builtins, new Reference[0]);
     }
@@ -26,9 +67,18 @@ public class HalClass extends HalObject<String>
         value = name;
         this.parent = parent;
         instRecord = new ReferenceRecord(null, instance);
+        share(instRecord);
         inherit(parent);
 
         ReferenceRecord statRecord = getRecord();
+        if(statRecord != null) {
+            share(statRecord);
+
+            // The class methods of a class without parent are the ones of Class
+            if(parent == null)
+                dependOn(statRecord.parent);
+        }
+
         for(Reference statMethod : statik)
             statRecord.defineBuiltin(statMethod);
 
@@ -39,10 +89,92 @@ public class HalClass extends HalObject<String>
         // Do nothing
     }
 
+    /**
+     * Makes the records of a builtin class copy on write, so the changes
+     * of an interpreter to the class are not seen by the others. The
+     * builtin methods of the class are shared too, so they are isolated.
+     */
+    public void isolate() {
+        super.isolate();
+        instRecord.isolated = true;
+
+        for(Reference r : instRecord.getReferences())
+            isolateBuiltin(r.data);
+
+        for(Reference r : getRecord().getReferences())
+            isolateBuiltin(r.data);
+    }
+
+    private static void isolateBuiltin(HalObject value) {
+        if(value instanceof Builtin)
+            value.isolate();
+    }
+
+    private void share(ReferenceRecord record) {
+        record.shared = true;
+        record.owner = this;
+    }
+
     private void inherit(HalClass parent) {
         if(parent != null) {
             instRecord.parent = parent.getInstanceRecord();
             getRecord().parent = parent.getRecord();
+            dependOn(instRecord.parent);
+
+            // The methods found before may be hidden by the new parent
+            changed();
+        }
+    }
+
+    /** Gets the version of the class. */
+    public int getVersion() {
+        return version;
+    }
+
+    /** Changes the version of the class and of the classes that depend on it. */
+    public void changed() {
+        synchronized(HalClass.class) {
+            changed(++changes);
+        }
+    }
+
+    private void changed(int stamp) {
+        // Classes may depend on each other, like Object and Class
+        if(version == stamp)
+            return;
+
+        version = stamp;
+
+        Iterator<WeakReference<HalClass>> it = dependents.iterator();
+        while(it.hasNext()) {
+            HalClass dependent = it.next().get();
+
+            if(dependent == null)
+                it.remove();
+            else
+                dependent.changed(stamp);
+        }
+    }
+
+    /** Makes the class depend on the owner of a record its records inherit from. */
+    private void dependOn(ReferenceRecord record) {
+        if(record == null || record.owner == null)
+            return;
+
+        HalClass owner = record.owner;
+
+        synchronized(HalClass.class) {
+            if(owner.dependents.size() >= owner.purgeAt) {
+                Iterator<WeakReference<HalClass>> it = owner.dependents.iterator();
+                while(it.hasNext()) {
+                    if(it.next().get() == null)
+                        it.remove();
+                }
+
+                owner.purgeAt = Math.max(8, owner.dependents.size() * 2);
+            }
+
+            owner.dependents.add(new WeakReference<HalClass>(this));
         }
     }
 
@@ -54,28 +186,73 @@ public class HalClass extends HalObject<String>
         return new HalString(value);
     }
 
-    public HalBoolean bool() { return new HalBoolean(true); }
+    public HalBoolean bool() { return HalBoolean.TRUE; }
 
     public void solveDependency() {
         super.initRecord();
+        share(getRecord());
         inherit(HalObject.klass);
         HalMethod.klass.inherit(HalObject.klass);
         HalMethod.klass.getInstanceRecord().defineBuiltin(new Reference(new Builtin("arity") {
             @Override
             public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-                HalInteger arity = new HalInteger(((HalMethod)instance).value.getArity());
-                instance.getRecord().defineVariable("arity", arity);
-                return arity;
+                return HalInteger.valueOf(((HalMethod)instance).value.getArity());
             }
         }));
         HalMethod.klass.getInstanceRecord().defineBuiltin(new Reference(new Builtin("break?") {
             @Override
             public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-                return new HalBoolean(((HalMethod) instance).isBreakRequested());
+                return HalBoolean.valueOf(((HalMethod) instance).isBreakRequested());
             }
         }));
     }
 
     public ReferenceRecord getInstanceRecord() { return instRecord; }
+
+    /**
+     * Looks up a method of the instances of the class, including the
+     * inherited ones. Every name is looked up once in the records of the
+     * hierarchy and kept in a table, which is emptied when the version of
+     * the class changes, so the table is filled again with the names that
+     * are used after the change.
+     * @param name The name of the method
+     * @return The reference to the method, or null if it is not defined
+     */
+    public Reference lookupInstanceMethod(String name) {
+        ReferenceRecord record = getInstanceRecord();
+
+        // Records of other objects, like the ones of eigenclasses, are not versioned by the class
+        if(record.owner != this)
+            return record.getUnsafeReference(name);
+
+        Isolate isolate = Isolate.of(record);
+        MethodTable table = isolate == null ? methods : (MethodTable) isolate.getTable(this);
+        int version = this.version;
+
+        if(table == null || table.version != version) {
+            table = new MethodTable(version);
+
+            if(isolate == null)
+                methods = table;
+            else
+                isolate.setTable(this, table);
+        }
+
+        Reference r = table.get(name);
+
+        if(r == null) {
+            r = record.getUnsafeReference(name);
+            table.put(name, r == null ? MISSING : r);
+        }
+
+        return r == MISSING ? null : r;
+    }
+
+    /** Whether the method of the instances with the given name is a builtin, i.e. it is not redefined. */
+    public boolean hasInstanceBuiltin(String name) {
+        Reference r = lookupInstanceMethod(name);
+        return r != null && r.data instanceof Builtin;
+    }
+
     public HalClass getKlass(){ return HalClass.klass; }
 }
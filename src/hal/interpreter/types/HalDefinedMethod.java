@@ -1,20 +1,43 @@
 package hal.interpreter.types;
 
-import hal.Hal;
 import hal.interpreter.HalTree;
+import hal.interpreter.Interpreter;
 import hal.interpreter.core.Arguments;
 import hal.interpreter.core.MethodDefinition;
+import hal.interpreter.core.Params;
+import hal.interpreter.exceptions.InvalidArgumentsException;
 
 
 public class HalDefinedMethod extends HalMethod {
-    private HalTree block;
+    protected HalTree block;
 
     public HalDefinedMethod(MethodDefinition def, HalTree block) {
         super(def);
         this.block = block;
     }
 
+    /**
+     * Calls the method with positional arguments. If the method only has
+     * positional params, the arguments are stored directly in the slots
+     * of the new frame, without filling them by name.
+     */
+    public HalObject call(HalObject instance, HalMethod lambda, HalObject... args) {
+        Params params = value.params;
+
+        if(!params.positional_only)
+            return super.call(instance, lambda, args);
+
+        if(args.length != params.arity)
+            throw new InvalidArgumentsException();
+
+        return mcall(instance, lambda, args);
+    }
+
     public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-        return Hal.INTERPRETER.executeMethod(value, block, instance, lambda, args);
+        return Interpreter.current().executeMethod(value, block, instance, lambda, args);
+    }
+
+    public HalObject mcall(HalObject instance, HalMethod lambda, HalObject[] args) {
+        return Interpreter.current().executeMethod(value, block, instance, lambda, args);
     }
 }
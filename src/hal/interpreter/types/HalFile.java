@@ -4,22 +4,38 @@ import hal.interpreter.Reference;
 import hal.interpreter.core.Arguments;
 import hal.interpreter.core.Builtin;
 import hal.interpreter.core.Params;
+import hal.interpreter.exceptions.InvalidArgumentsException;
 import hal.interpreter.exceptions.OSException;
 import hal.interpreter.types.enumerable.HalArray;
 import hal.interpreter.types.enumerable.HalString;
 
+import java.io.BufferedReader;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileChannel;
 
 
+/**
+ * File opened for writing. Files are read with the static methods of the
+ * class, which stream their contents through a fixed buffer, so the
+ * memory they take does not depend on the size of the file.
+ */
 public class HalFile extends HalObject<PrintWriter> {
+    /** Size of the buffer of the readers of files */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     public HalFile(PrintWriter writer) {
         super(writer);
     }
 
     public HalBoolean bool() {
-        return new HalBoolean(true);
+        return HalBoolean.TRUE;
     }
 
     private static final Reference __open__ = new Reference(new Builtin("open", new Params.Param("path")) {
@@ -42,6 +58,118 @@ public class HalFile extends HalObject<PrintWriter> {
         }
     });
 
+    private static Reader reader(HalObject path) {
+        try {
+            return new InputStreamReader(new FileInputStream(path.toString()), "UTF-8");
+        } catch (FileNotFoundException e) {
+            throw new OSException(e.getMessage());
+        } catch (UnsupportedEncodingException e) {
+            throw new OSException(e.getMessage());
+        }
+    }
+
+    private static void close(Reader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            // Nothing to do, the file has already been read
+        }
+    }
+
+    private static final Reference __each_line__ = new Reference(new Builtin("each_line", new Params.Param("path")) {
+        @Override
+        public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
+            if(lambda == null)
+                throw new InvalidArgumentsException();
+
+            BufferedReader reader = new BufferedReader(reader(args.get("path")), BUFFER_SIZE);
+            HalObject last = HalNone.NONE;
+
+            try {
+                String line;
+
+                while((line = reader.readLine()) != null) {
+                    last = lambda.callBlock(instance, new HalString(line));
+
+                    if(lambda.isBreakRequested())
+                        break;
+                }
+            } catch (IOException e) {
+                throw new OSException(e.getMessage());
+            } finally {
+                close(reader);
+            }
+
+            return last;
+        }
+    });
+
+    private static final Reference __read_chunks__ = new Reference(new Builtin("read_chunks", new Params.Param("path"),
+            new Params.Param("size")) {
+        @Override
+        public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
+            int size = args.get("size").toInteger();
+
+            if(lambda == null || size <= 0)
+                throw new InvalidArgumentsException();
+
+            Reader reader = reader(args.get("path"));
+            char[] chunk = new char[size];
+            HalObject last = HalNone.NONE;
+
+            try {
+                int n;
+
+                // Every chunk is full, except the last one
+                while((n = fill(reader, chunk)) > 0) {
+                    last = lambda.callBlock(instance, new HalString(new String(chunk, 0, n)));
+
+                    if(lambda.isBreakRequested())
+                        break;
+                }
+            } catch (IOException e) {
+                throw new OSException(e.getMessage());
+            } finally {
+                close(reader);
+            }
+
+            return last;
+        }
+
+        private int fill(Reader reader, char[] chunk) throws IOException {
+            int n = 0;
+            int read;
+
+            while(n < chunk.length && (read = reader.read(chunk, n, chunk.length - n)) >= 0)
+                n += read;
+
+            return n;
+        }
+    });
+
+    private static final Reference __map__ = new Reference(new Builtin("map", new Params.Param("path")) {
+        @Override
+        public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
+            try {
+                RandomAccessFile file = new RandomAccessFile(args.get("path").toString(), "r");
+
+                try {
+                    FileChannel channel = file.getChannel();
+
+                    if(channel.size() > Integer.MAX_VALUE)
+                        throw new OSException("File too large to be mapped: " + args.get("path"));
+
+                    // The mapping stays valid after the file is closed
+                    return new HalMappedFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                } finally {
+                    file.close();
+                }
+            } catch (IOException e) {
+                throw new OSException(e.getMessage());
+            }
+        }
+    });
+
     private static final Reference __print__ = new Reference(new Builtin("print", new Params.ParamGroup("stuff")) {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
@@ -77,7 +205,10 @@ public class HalFile extends HalObject<PrintWriter> {
             __write__,
             __close__
     },
-            __open__);
+            __open__,
+            __each_line__,
+            __read_chunks__,
+            __map__);
 
     public HalClass getKlass() { return HalFile.klass;  }
 }
@@ -19,7 +19,7 @@ public class HalInstance extends HalObject<HalClass>
     }
 
     public HalBoolean bool() {
-        return new HalBoolean(true);
+        return HalBoolean.TRUE;
     }
 
     public HalClass getKlass() {
@@ -1,8 +1,8 @@
 package hal.interpreter.types;
 
 
-import hal.Hal;
-import hal.interpreter.HalTree;
+import hal.interpreter.Interpreter;
+import hal.interpreter.Output;
 import hal.interpreter.Reference;
 import hal.interpreter.core.Arguments;
 import hal.interpreter.core.Builtin;
@@ -18,12 +18,16 @@ import hal.interpreter.types.numeric.HalFloat;
 import hal.interpreter.types.numeric.HalInteger;
 import hal.interpreter.types.numeric.HalNumber;
 import hal.interpreter.types.numeric.HalRational;
-import hal.parser.HalLexer;
-import org.antlr.runtime.CommonToken;
 
 abstract public class HalKernel<T> extends HalObject<T>
 {
-    public static void init(){
+    private static boolean initialized = false;
+
+    /** Prepares the builtin classes. They are shared by all the interpreters, so it is only done once. */
+    public static synchronized void init(){
+        if(initialized)
+            return;
+
         // Resolve circular dependencies
         HalClass.klass.solveDependency();
         HalMethod.klass.getInstanceRecord().parent = HalObject.klass.getInstanceRecord();
@@ -59,12 +63,23 @@ abstract public class HalKernel<T> extends HalObject<T>
                 // Misc
                 HalProcess.klass,
                 HalFile.klass,
+                HalMappedFile.klass,
                 HalStringStream.klass
         };
 
         ReferenceRecord record = HalKernel.klass.getInstanceRecord();
         for(HalClass klass : klasses)
             record.defineVariable(klass.value, klass);
+
+        for(HalClass klass : klasses)
+            klass.isolate();
+
+        // Shared objects that are not named in Kernel
+        HalType.klass.isolate();
+        HalSymbol.klass.isolate();
+        HalRegExp.klass.isolate();
+
+        initialized = true;
     }
 
     private static final Reference __print__ = new Reference(new Builtin("print", new Params.ParamGroup("args")) {
@@ -95,14 +110,22 @@ abstract public class HalKernel<T> extends HalObject<T>
         }
     });
     
+    private static final Reference __flush__ = new Reference(new Builtin("flush") {
+        @Override
+        public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
+            Output.flush();
+            return HalNone.NONE;
+        }
+    });
+
     private static final Reference __range__ = new Reference(new Builtin("range",
             new Params.Param("end"),
             new Params.Keyword("start", HalNone.NONE),
-            new Params.Keyword("step", new HalInteger(1)))
+            new Params.Keyword("step", HalInteger.valueOf(1)))
     {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            HalObject ini = new HalInteger(0);
+            HalObject ini = HalInteger.valueOf(0);
             HalObject end = args.get("end");
             HalObject step = args.get("step");
 
@@ -111,7 +134,7 @@ abstract public class HalKernel<T> extends HalObject<T>
                 end = args.get("start");
             }
 
-            return new HalRange(ini, end, step, new HalBoolean(false));
+            return new HalRange(ini, end, step, HalBoolean.FALSE);
         }
     });
 
@@ -129,18 +152,14 @@ abstract public class HalKernel<T> extends HalObject<T>
             new Params.Param("module")) {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            String module = ((HalString)args.get("module")).value;
-
-            HalTree imp = new HalTree(new CommonToken(HalLexer.IMPORT_STMT));
-            imp.addChild(new HalTree(new CommonToken(HalLexer.ID, module)));
-
-            return Hal.INTERPRETER.evaluateImport(imp);
+            return Interpreter.current().require(((HalString)args.get("module")).getValue());
         }
     });
 
     public static final HalClass klass = new HalClass("Kernel", HalObject.klass,
             __print__,
             __write__,
+            __flush__,
             __range__,
             __method_missing__,
             __require__
@@ -1,6 +1,7 @@
 package hal.interpreter.types;
 
 import hal.interpreter.HalTree;
+import hal.interpreter.Interpreter;
 import hal.interpreter.Reference;
 import hal.interpreter.core.Arguments;
 import hal.interpreter.core.LambdaDefinition;
@@ -21,6 +22,29 @@ public class HalLambda extends HalDefinedMethod
         return super.mcall(self, lambda, args);
     }
 
+    public HalObject mcall(HalObject instance, HalMethod lambda, HalObject[] args) {
+        return super.mcall(self, lambda, args);
+    }
+
+    /**
+     * Calls the lambda as a block with one argument. If its only param
+     * is positional, the argument is stored directly in its slot.
+     */
+    public HalObject callBlock(HalObject instance, HalObject x) {
+        if(value.params.positional_only && value.params.arity == 1)
+            return Interpreter.current().executeBlock(value, block, self, x, null);
+
+        return super.callBlock(instance, x);
+    }
+
+    /** Calls the lambda as a block with two arguments. */
+    public HalObject callBlock(HalObject instance, HalObject x, HalObject y) {
+        if(value.params.positional_only && value.params.arity == 2)
+            return Interpreter.current().executeBlock(value, block, self, x, y);
+
+        return super.callBlock(instance, x, y);
+    }
+
     public HalObject instanceEval(HalObject instance, HalMethod lambda, Arguments args) {
         return super.mcall(instance, lambda, value.params.fill(args));
     }
@@ -0,0 +1,130 @@
+package hal.interpreter.types;
+
+import hal.interpreter.Reference;
+import hal.interpreter.core.Arguments;
+import hal.interpreter.core.Builtin;
+import hal.interpreter.core.Params;
+import hal.interpreter.exceptions.InvalidArgumentsException;
+import hal.interpreter.types.enumerable.HalString;
+import hal.interpreter.types.numeric.HalInteger;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+
+/**
+ * Read-only view of a file mapped in memory. The contents are read by the
+ * operating system when they are accessed, so only the parts of the file
+ * that are used take memory. Offsets and sizes are in bytes, and the
+ * contents are decoded as UTF-8.
+ */
+public class HalMappedFile extends HalObject<MappedByteBuffer> {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    public HalMappedFile(MappedByteBuffer buffer) {
+        super(buffer);
+    }
+
+    public HalBoolean bool() {
+        return HalBoolean.TRUE;
+    }
+
+    /** Decoder of the lines of a file, which reuses its buffer of characters. */
+    private static class LineDecoder {
+        private CharsetDecoder decoder = UTF8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private CharBuffer chars = CharBuffer.allocate(256);
+
+        String decode(ByteBuffer bytes) {
+            // A byte is never decoded to more than one character
+            if(chars.capacity() < bytes.remaining())
+                chars = CharBuffer.allocate(Math.max(bytes.remaining(), chars.capacity() * 2));
+
+            chars.clear();
+            decoder.reset();
+            decoder.decode(bytes, chars, true);
+            decoder.flush(chars);
+            chars.flip();
+
+            return chars.toString();
+        }
+    }
+
+    private ByteBuffer slice(int start, int end) {
+        ByteBuffer bytes = value.duplicate();
+        bytes.limit(end);
+        bytes.position(start);
+        return bytes;
+    }
+
+    private static final Reference __size__ = new Reference(new Builtin("size") {
+        @Override
+        public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
+            return HalInteger.valueOf(((HalMappedFile)instance).value.capacity());
+        }
+    });
+
+    private static final Reference __read__ = new Reference(new Builtin("read", new Params.Param("offset"),
+            new Params.Param("length")) {
+        @Override
+        public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
+            HalMappedFile file = (HalMappedFile) instance;
+            int offset = args.get("offset").toInteger();
+            int length = args.get("length").toInteger();
+
+            if(offset < 0 || length < 0 || offset > file.value.capacity())
+                throw new InvalidArgumentsException();
+
+            int end = (int) Math.min((long) offset + length, file.value.capacity());
+            return new HalString(new LineDecoder().decode(file.slice(offset, end)));
+        }
+    });
+
+    private static final Reference __each_line__ = new Reference(new Builtin("each_line") {
+        @Override
+        public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
+            if(lambda == null)
+                throw new InvalidArgumentsException();
+
+            HalMappedFile file = (HalMappedFile) instance;
+            LineDecoder decoder = new LineDecoder();
+            HalObject last = HalNone.NONE;
+            int size = file.value.capacity();
+            int start = 0;
+
+            while(start < size) {
+                int end = start;
+
+                while(end < size && file.value.get(end) != '\n')
+                    end++;
+
+                int next = end + 1;
+
+                if(end > start && file.value.get(end - 1) == '\r')
+                    end--;
+
+                last = lambda.callBlock(instance, new HalString(decoder.decode(file.slice(start, end))));
+
+                if(lambda.isBreakRequested())
+                    break;
+
+                start = next;
+            }
+
+            return last;
+        }
+    });
+
+    public static final HalClass klass = new HalClass("MappedFile", HalObject.klass,
+            __size__,
+            __read__,
+            __each_line__
+    );
+
+    public HalClass getKlass() { return HalMappedFile.klass;  }
+}
@@ -11,10 +11,27 @@ abstract public class HalMethod extends HalObject<MethodDefinition>
         super(def);
     }
 
+    @Override
+    protected boolean hasLazyRecord() { return true; }
+
+    public HalObject call(HalObject instance, HalMethod lambda, HalObject... args) {
+        return call(instance, lambda, new Arguments(args));
+    }
+
     public HalObject call(HalObject instance, HalMethod lambda, Arguments args) {
         return mcall(instance, lambda, value.params.fill(args));
     }
 
+    /** Calls the method as the block of an iteration, with one argument. */
+    public HalObject callBlock(HalObject instance, HalObject x) {
+        return call(instance, null, x);
+    }
+
+    /** Calls the method as the block of an iteration, with two arguments. */
+    public HalObject callBlock(HalObject instance, HalObject x, HalObject y) {
+        return call(instance, null, x, y);
+    }
+
     public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
         throw new RuntimeException("mcall not implemented");
     }
@@ -32,7 +49,7 @@ abstract public class HalMethod extends HalObject<MethodDefinition>
     }
 
     public HalString str() { return new HalString(value.name); }
-    public HalBoolean bool() { return new HalBoolean(true); }
+    public HalBoolean bool() { return HalBoolean.TRUE; }
     public HalClass getKlass() { return HalMethod.klass; }
 
     public static final HalClass klass = new HalClass("Method", null);
@@ -12,12 +12,15 @@ public class HalNone extends HalObject
         value = null;
     }
 
+    @Override
+    protected boolean hasLazyRecord() { return true; }
+
     public HalString str() {
         return new HalString("");
     }
 
     public HalBoolean bool() {
-        return new HalBoolean(false);
+        return HalBoolean.FALSE;
     }
 
     public HalClass getKlass() { return HalNone.klass; }
@@ -25,10 +28,14 @@ public class HalNone extends HalObject
     private static final Reference __eq__ = new Reference(new Builtin("eq", new Params.Param("e1")) {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            return new HalBoolean(args.get("e1") instanceof HalNone);
+            return HalBoolean.valueOf(args.get("e1") instanceof HalNone);
         }
     });
 
     public static final HalClass klass = new HalClass("None", HalObject.klass, __eq__);
     public static final HalNone NONE = new HalNone();
+
+    static {
+        NONE.freeze();
+    }
 }
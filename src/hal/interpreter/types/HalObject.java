@@ -32,9 +32,12 @@ public abstract class HalObject<T> extends HalType implements Comparable<HalObje
     public T value;
     private ReferenceRecord obj_record;
     private HalClass eigenclass;
+    /** Whether nothing can be defined in the object, because it is shared */
+    private boolean frozen = false;
 
     public HalObject() {
-        initRecord();
+        if(!hasLazyRecord())
+            initRecord();
     }
 
     public HalObject(T d) {
@@ -46,20 +49,98 @@ public abstract class HalObject<T> extends HalType implements Comparable<HalObje
         obj_record = new ReferenceRecord(getKlass().getInstanceRecord());
     }
 
+    /**
+     * Whether the own record of the object is only created when something
+     * is defined in it. Objects that are created very often, like numbers,
+     * use the record of their class until then.
+     */
+    protected boolean hasLazyRecord() {
+        return false;
+    }
+
     public T getValue() {
         return value;
     }
 
-    public final ReferenceRecord getRecord() { return obj_record; }
-    public ReferenceRecord getInstanceRecord() {
+    public final ReferenceRecord getRecord() {
+        if(obj_record == null && hasLazyRecord()) {
+            if(frozen)
+                throw new TypeException(getKlass().value + " " + repr().getValue() + " can not be modified");
+
+            initRecord();
+        }
+
         return obj_record;
     }
+
+    /**
+     * Freezes the object, so it can be shared: defining something in it
+     * is an error. Only objects whose record has not been created can be
+     * frozen.
+     * @return Whether the object is frozen
+     */
+    public final boolean freeze() {
+        if(obj_record == null && hasLazyRecord())
+            frozen = true;
+
+        return frozen;
+    }
+
+    /**
+     * Makes the record of an object shared by all the interpreters copy on
+     * write, like the ones of symbols or builtin methods, so the names an
+     * interpreter defines in the object are not seen by the others.
+     */
+    public void isolate() {
+        getRecord().isolated = true;
+    }
+
+    /** Gets the own record of the object, or null if it has not been created yet. */
+    public final ReferenceRecord getOwnRecord() { return obj_record; }
+
+    /** Gets the record where the names of the object are looked up, without creating it. */
+    public final ReferenceRecord getLookupRecord() {
+        if(obj_record == null && hasLazyRecord())
+            return getKlass().getInstanceRecord();
+
+        return obj_record;
+    }
+
+    /**
+     * Looks up a method of the object: first in its own record and then in
+     * the table of methods of its class.
+     * @param name The name of the method
+     * @return The reference to the method, or null if it is not defined
+     */
+    public final Reference lookupMethod(String name) {
+        HalClass klass = getKlass();
+
+        if(obj_record == null)
+            return klass.lookupInstanceMethod(name);
+
+        // The lookup does not depend on the class of the object
+        if(obj_record.parent != klass.getInstanceRecord())
+            return obj_record.getUnsafeReference(name);
+
+        Reference r = obj_record.getLocalReference(name);
+        return r != null ? r : klass.lookupInstanceMethod(name);
+    }
+
+    /** Whether the method of the object with the given name is a builtin, i.e. it is not redefined. */
+    public boolean hasBuiltin(String name) {
+        Reference r = lookupMethod(name);
+        return r != null && r.data instanceof Builtin;
+    }
+
+    public ReferenceRecord getInstanceRecord() {
+        return getRecord();
+    }
     public HalObject getEigenclass() {
         if(eigenclass == null) {
             final HalObject self = this;
-            eigenclass = new HalClass("Eigenclass<"+ repr().value + ">", null){
+            eigenclass = new HalClass("Eigenclass<"+ repr().getValue() + ">", null){
                 public ReferenceRecord getInstanceRecord() {
-                    return self.obj_record;
+                    return self.getRecord();
                 }
             };
         }
@@ -87,7 +168,7 @@ public abstract class HalObject<T> extends HalType implements Comparable<HalObje
 
     @Override
     public int hashCode() {
-        return value.hashCode();
+        return getValue().hashCode();
     }
 
     public String toString() {
@@ -113,15 +194,22 @@ public abstract class HalObject<T> extends HalType implements Comparable<HalObje
     }
 
     public HalBoolean not() {
-        return new HalBoolean(!((HalBoolean) methodcall("__bool__")).value);
+        return HalBoolean.valueOf(!((HalBoolean) methodcall("__bool__")).value);
     }
 
     public HalString str() {
         return new HalString("<" + getKlass().value + " @" + System.identityHashCode(this) + ">");
     }
 
+    /**
+     * Calls the object with positional arguments only.
+     * Methods may override it to avoid building the arguments.
+     */
     public HalObject call(HalObject instance, HalMethod lambda, HalObject...args) {
-        return call(instance, lambda, new Arguments(args));
+        if (args.length != 0 || lambda != null)
+            throw new TypeException(getKlass().value + " type is not callable");
+
+        return this;
     }
 
     public HalObject call(HalObject instance, HalMethod lambda, Arguments args) {
@@ -131,8 +219,21 @@ public abstract class HalObject<T> extends HalType implements Comparable<HalObje
         return this;
     }
 
+    /**
+     * Calls the object with a single argument and no block.
+     * Builtins may override it to avoid building the arguments.
+     */
+    public HalObject callBinary(HalObject instance, HalObject x) {
+        return call(instance, null, x);
+    }
+
     public HalObject methodcall(String name, HalObject... args) {
-        return methodcall_lambda(name, null, new Arguments(args));
+        Reference method = lookupMethod(name);
+
+        if(args.length == 1)
+            return methodcall_resolved(method, name, args[0]);
+
+        return methodcall_resolved(method, name, null, args);
     }
 
     public HalObject methodcall(String name, Arguments args) {
@@ -144,16 +245,88 @@ public abstract class HalObject<T> extends HalType implements Comparable<HalObje
     }
 
     public HalObject methodcall_lambda(String name, HalMethod lambda, Arguments args) {
-        ReferenceRecord original = getRecord();
+        return methodcall_resolved(lookupMethod(name), name, lambda, args);
+    }
+
+    /**
+     * Calls a method of the object that has already been looked up.
+     * @param method The reference to the method (null if it was not found)
+     * @param name The name of the method
+     * @param lambda The block passed to the method
+     * @param args The arguments of the call
+     * @return The result of the call
+     */
+    public HalObject methodcall_resolved(Reference method, String name, HalMethod lambda, Arguments args) {
+        if(method == null)
+            throw nameError(new NameException(name));
+
+        try {
+            return method.data.call(this, lambda, args);
+        } catch (NameException e) {
+            throw nameError(e);
+        } catch(InvalidArgumentsException e) {
+            throw argumentsError(e, name);
+        } catch(NewNotSupportedException e) {
+            throw newError(e);
+        }
+    }
+
+    /**
+     * Calls a method of the object that has already been looked up
+     * with positional arguments only.
+     * @param method The reference to the method (null if it was not found)
+     * @param name The name of the method
+     * @param lambda The block passed to the method
+     * @param args The positional arguments of the call
+     * @return The result of the call
+     */
+    public HalObject methodcall_resolved(Reference method, String name, HalMethod lambda, HalObject[] args) {
+        if(method == null)
+            throw nameError(new NameException(name));
 
         try {
-            return original.getVariable(name).call(this, lambda, args);
+            return method.data.call(this, lambda, args);
         } catch (NameException e) {
-            throw new TypeException(e.getMessage() + " in " + toString() + " of class " + getKlass().value);
+            throw nameError(e);
         } catch(InvalidArgumentsException e) {
-                throw new TypeException(e.getMessage() + " for " + getKlass().value + "#" + name);
+            throw argumentsError(e, name);
         } catch(NewNotSupportedException e) {
-                throw new TypeException(e.getMessage() + " in " + toString());
+            throw newError(e);
         }
     }
+
+    /**
+     * Calls a method of the object that has already been looked up
+     * with a single argument, like the method of a binary operator.
+     * @param method The reference to the method (null if it was not found)
+     * @param name The name of the method
+     * @param x The argument of the call
+     * @return The result of the call
+     */
+    public HalObject methodcall_resolved(Reference method, String name, HalObject x) {
+        if(method == null)
+            throw nameError(new NameException(name));
+
+        try {
+            return method.data.callBinary(this, x);
+        } catch (NameException e) {
+            throw nameError(e);
+        } catch(InvalidArgumentsException e) {
+            throw argumentsError(e, name);
+        } catch(NewNotSupportedException e) {
+            throw newError(e);
+        }
+    }
+
+    private TypeException nameError(NameException e) {
+        return new TypeException(e.getMessage() + " in " + toString() + " of class " + getKlass().value);
+    }
+
+    private TypeException argumentsError(InvalidArgumentsException e, String name) {
+        return new TypeException(e.getMessage() + " for " + getKlass().value + "#" + name);
+    }
+
+    private TypeException newError(NewNotSupportedException e) {
+        return new TypeException(e.getMessage() + " in " + toString());
+    }
 }
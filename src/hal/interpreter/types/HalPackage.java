@@ -42,7 +42,7 @@ public class HalPackage extends HalObject<String>
     }
 
     public HalBoolean bool() {
-        return new HalBoolean(true);
+        return HalBoolean.TRUE;
     }
 
     public ReferenceRecord getInstanceRecord() {
@@ -15,64 +15,182 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 
 
+/**
+ * Process started by a command of the shell. The output and the error
+ * streams of the process are read by background threads while it runs,
+ * so a process that writes more than the buffer of a pipe does not block.
+ * When the process is waited for, its output, error and status are
+ * defined in the record of the object.
+ */
 public class HalProcess extends HalObject<Process>
 {
-    public HalProcess(Process p) {
+    /** Thread that reads a stream of a process until its end. */
+    private static class Drain extends Thread {
+        private BufferedReader reader;
+        /** Lines read, or null if they are discarded */
+        private StringBuilder contents;
+
+        Drain(BufferedReader reader, boolean keep) {
+            this.reader = reader;
+            contents = keep ? new StringBuilder() : null;
+            setDaemon(true);
+            start();
+        }
+
+        @Override
+        public void run() {
+            String line;
+
+            try {
+                boolean first = true;
+                while ( (line = reader.readLine()) != null) {
+                    if(contents == null)
+                        continue;
+
+                    if(!first)
+                        contents.append(System.getProperty("line.separator"));
+                    else
+                        first = false;
+
+                    contents.append(line);
+                }
+            } catch (IOException e) {
+                // The process has closed the stream, what was read is kept
+            }
+        }
+
+        String contents() throws InterruptedException {
+            join();
+            return contents == null ? "" : contents.toString();
+        }
+    }
+
+    private Drain output;
+    private Drain error;
+    private boolean finished = false;
+
+    /**
+     * Creates the object of a process and starts reading its streams.
+     * @param p The process
+     * @param drainOutput Whether the output is read in the background. Otherwise,
+     *                    it must be read with {@link #streamOutput}.
+     */
+    public HalProcess(Process p, boolean drainOutput) {
         super(p);
-        ReferenceRecord record = getRecord();
+        error = new Drain(reader(p.getErrorStream()), true);
+
+        if(drainOutput)
+            output = new Drain(reader(p.getInputStream()), true);
+    }
 
-        record.defineVariable("output", new HalString(streamToString(p.getInputStream())));
-        record.defineVariable("error", new HalString(streamToString(p.getErrorStream())));
-        record.defineVariable("status", new HalInteger(p.exitValue()));
+    private static BufferedReader reader(InputStream stream) {
+        return new BufferedReader(new InputStreamReader(stream));
     }
 
-    private String streamToString(InputStream stream) {
-        BufferedReader br = new BufferedReader(new InputStreamReader(stream));
-        StringBuilder builder = new StringBuilder();
-        String line;
+    /**
+     * Calls a block with every line of the output of the process, as soon as
+     * it is written. If the block breaks the iteration, the rest of the
+     * output is discarded. The lines are not kept, so the output of the
+     * process is empty.
+     */
+    private void streamOutput(HalObject instance, HalMethod lambda) {
+        BufferedReader reader = reader(value.getInputStream());
 
         try {
-            boolean first = true;
-            while ( (line = br.readLine()) != null) {
-                if(!first)
-                    builder.append(System.getProperty("line.separator"));
-                else
-                    first = false;
-
-                builder.append(line);
+            String line;
+
+            while((line = reader.readLine()) != null) {
+                lambda.callBlock(instance, new HalString(line));
+
+                if(lambda.isBreakRequested())
+                    break;
             }
         } catch (IOException e) {
-            return "";
+            // The process has closed its output
+        } finally {
+            output = new Drain(reader, false);
         }
+    }
+
+    /** Waits for the end of the process and defines its output, error and status. */
+    public void waitFor() {
+        if(finished)
+            return;
+
+        try {
+            ReferenceRecord record = getRecord();
 
-        return builder.toString();
+            record.defineVariable("output", new HalString(output.contents()));
+            record.defineVariable("error", new HalString(error.contents()));
+            record.defineVariable("status", HalInteger.valueOf(value.waitFor()));
+            finished = true;
+        } catch (InterruptedException e) {
+            throw new OSException(e.getMessage());
+        }
     }
 
     public HalBoolean bool() {
-        return new HalBoolean(value.exitValue() == 0);
+        waitFor();
+        return HalBoolean.valueOf(value.exitValue() == 0);
     }
 
+    private static Process start(HalObject command) {
+        String cmd = ((HalString) command.methodcall("__str__")).getValue();
+
+        try {
+            String[] cmds = {"/bin/sh", "-c", cmd};
+            return Runtime.getRuntime().exec(cmds);
+        } catch (IOException e) {
+            throw new OSException(e.getMessage());
+        }
+    }
 
     private static Reference __exec__ = new Reference(new Builtin("exec", new Params.Param("command")) {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            String cmd = ((HalString) args.get("command").methodcall("__str__")).value;
+            HalProcess process = new HalProcess(start(args.get("command")), lambda == null);
 
+            if(lambda != null)
+                process.streamOutput(instance, lambda);
+
+            process.waitFor();
+            return process;
+        }
+    });
+
+    private static Reference __spawn__ = new Reference(new Builtin("spawn", new Params.Param("command")) {
+        @Override
+        public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
+            return new HalProcess(start(args.get("command")), true);
+        }
+    });
+
+    private static Reference __wait__ = new Reference(new Builtin("wait") {
+        @Override
+        public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
+            ((HalProcess)instance).waitFor();
+            return instance;
+        }
+    });
+
+    private static Reference __running__ = new Reference(new Builtin("running?") {
+        @Override
+        public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
             try {
-                String[] cmds = {"/bin/sh", "-c", cmd};
-                Process p = Runtime.getRuntime().exec(cmds);
-                p.waitFor();
-                return new HalProcess(p);
-            } catch (IOException e) {
-                throw new OSException(e.getMessage());
-            } catch (InterruptedException e) {
-                throw new OSException(e.getMessage());
+                ((HalProcess)instance).value.exitValue();
+                return HalBoolean.FALSE;
+            } catch (IllegalThreadStateException e) {
+                return HalBoolean.TRUE;
             }
         }
     });
 
-    public static final HalClass klass = new HalClass("Process", HalObject.klass, new Reference[]{},
-            __exec__);
+    public static final HalClass klass = new HalClass("Process", HalObject.klass, new Reference[]{
+            __wait__,
+            __running__
+    },
+            __exec__,
+            __spawn__);
 
     public HalClass getKlass() {
         return HalProcess.klass;
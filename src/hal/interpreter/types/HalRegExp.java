@@ -11,7 +11,7 @@ public class HalRegExp extends HalObject<String>
     }
 
     public HalBoolean bool(){
-        return new HalBoolean(true);
+        return HalBoolean.TRUE;
     }
 
     public HalString str() {
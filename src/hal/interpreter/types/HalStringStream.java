@@ -7,22 +7,28 @@ import hal.interpreter.core.Params;
 import hal.interpreter.exceptions.OSException;
 import hal.interpreter.types.enumerable.HalArray;
 import hal.interpreter.types.enumerable.HalString;
+import hal.interpreter.types.numeric.HalInteger;
 
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 
 
-public class HalStringStream extends HalObject<String> {
+/**
+ * Stream that writes to a string. The contents are kept in a buffer, so
+ * appending to the stream takes time proportional to what is appended,
+ * not to the whole contents, and big strings can be built piece by piece.
+ */
+public class HalStringStream extends HalObject<StringBuilder> {
     public HalStringStream() {
-        super("");
+        super(new StringBuilder());
     }
 
     public HalBoolean bool() {
-        return new HalBoolean(true);
+        return HalBoolean.TRUE;
     }
     public HalString str() {
-        return new HalString(value);
+        return new HalString(value.toString());
     }
 
     private static final Reference __print__ = new Reference(new Builtin("print", new Params.ParamGroup("stuff")) {
@@ -31,7 +37,7 @@ public class HalStringStream extends HalObject<String> {
             HalArray stuff = (HalArray) args.get("stuff");
             HalObject s = stuff.methodcall("__join__", new HalString("\n"));
 
-            ((HalStringStream)instance).value += s.toString() + "\n";
+            ((HalStringStream)instance).value.append(s.toString()).append('\n');
             return HalNone.NONE;
         }
     });
@@ -42,14 +48,36 @@ public class HalStringStream extends HalObject<String> {
             HalArray stuff = (HalArray) args.get("stuff");
             HalObject s = stuff.methodcall("__join__");
 
-            ((HalStringStream)instance).value += s.toString();
+            ((HalStringStream)instance).value.append(s.toString());
             return HalNone.NONE;
         }
     });
 
+    private static final Reference __lshift__ = new Reference(new Builtin("lshift", new Params.Param("x")) {
+        @Override
+        public HalObject callBinary(HalObject instance, HalObject x) {
+            ((HalStringStream)instance).value.append(x.toString());
+            return instance;
+        }
+
+        @Override
+        public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
+            return callBinary(instance, args.get("x"));
+        }
+    });
+
+    private static final Reference __size__ = new Reference(new Builtin("size") {
+        @Override
+        public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
+            return HalInteger.valueOf(((HalStringStream)instance).value.length());
+        }
+    });
+
     public static final HalClass klass = new HalClass("StringStream", HalObject.klass,
             __print__,
-            __write__
+            __write__,
+            __lshift__,
+            __size__
     ) {
         public HalObject newInstance(final HalClass instklass) {
             return new HalStringStream() {
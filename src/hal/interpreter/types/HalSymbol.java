@@ -3,22 +3,30 @@ package hal.interpreter.types;
 
 import hal.interpreter.types.enumerable.HalString;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class HalSymbol extends HalObject<String>
 {
-    static private HashMap<String, HalSymbol> symbols = new HashMap<String, HalSymbol>();
+    /** Symbols by name. They are shared by all the interpreters */
+    static private ConcurrentHashMap<String, HalSymbol> symbols = new ConcurrentHashMap<String, HalSymbol>();
 
     static public HalSymbol getSymbol(String s) {
-        if(!symbols.containsKey(s)) {
-            symbols.put(s, new HalSymbol(s));
+        HalSymbol symbol = symbols.get(s);
+
+        if(symbol == null) {
+            symbol = new HalSymbol(s);
+            HalSymbol previous = symbols.putIfAbsent(s, symbol);
+
+            if(previous != null)
+                symbol = previous;
         }
 
-        return symbols.get(s);
+        return symbol;
     }
 
     private HalSymbol(String s) {
         value = s;
+        isolate();
     }
 
     public String toString(){
@@ -34,7 +42,7 @@ public class HalSymbol extends HalObject<String>
     }
 
     public HalBoolean bool(){
-        return new HalBoolean(true);
+        return HalBoolean.TRUE;
     }
 
     public static final HalClass klass = new HalClass("Symbol", HalObject.klass
@@ -58,7 +58,7 @@ public abstract class HalType
     private static Reference __eq__ = new Reference(new Builtin("eq", new Params.Param("x")) {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            return new HalBoolean(instance.getValue().equals(args.get("x").getValue()));
+            return HalBoolean.valueOf(instance.getValue().equals(args.get("x").getValue()));
         }
     });
 
@@ -72,7 +72,7 @@ public abstract class HalType
     private static final Reference __le__ = new Reference(new Builtin("le") {
         @Override
         public HalObject call(HalObject instance, HalMethod lambda, Arguments args) {
-            return new HalBoolean(instance.methodcall("__lt__", args).toBoolean() ||
+            return HalBoolean.valueOf(instance.methodcall("__lt__", args).toBoolean() ||
                     instance.methodcall("__eq__", args).toBoolean());
         }
     });
@@ -94,7 +94,7 @@ public abstract class HalType
     private static final Reference __none__ = new Reference(new Builtin("none?") {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            return new HalBoolean(instance == HalNone.NONE);
+            return HalBoolean.valueOf(instance == HalNone.NONE);
         }
     });
 
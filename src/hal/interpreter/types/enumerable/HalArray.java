@@ -5,13 +5,16 @@ import hal.interpreter.core.Arguments;
 import hal.interpreter.core.Builtin;
 import hal.interpreter.core.InternalLambda;
 import hal.interpreter.core.Params;
+import hal.interpreter.core.data.ArrayStorage;
 import hal.interpreter.types.HalClass;
 import hal.interpreter.types.HalMethod;
 import hal.interpreter.types.HalNone;
 import hal.interpreter.types.HalObject;
+import hal.interpreter.types.numeric.HalFloat;
 import hal.interpreter.types.numeric.HalInteger;
+import hal.interpreter.types.numeric.HalLong;
 
-import java.util.ArrayList;
+import java.math.BigInteger;
 import java.util.Collections;
 import java.util.List;
 
@@ -19,21 +22,25 @@ import java.util.List;
 public class HalArray extends HalEnumerable<List<HalObject>>
 {
     public HalArray() {
-        value = new ArrayList<HalObject>();
+        value = new ArrayStorage();
+    }
+
+    public ArrayStorage getStorage() {
+        return (ArrayStorage) value;
     }
 
     public HalString str() {
-        String s = "";
+        StringBuilder s = new StringBuilder("[");
         boolean first = true;
 
         for(HalObject element : value) {
             if(first) first = false;
-            else s += ", ";
+            else s.append(", ");
 
-            s += element.methodcall("__repr__").getValue();
+            s.append(element.methodcall("__repr__").getValue());
         }
 
-        return new HalString("[" + s + "]");
+        return new HalString(s.append(']').toString());
     }
 
     public HalObject getitem(HalObject index) {
@@ -45,7 +52,7 @@ public class HalArray extends HalEnumerable<List<HalObject>>
     }
 
     public HalInteger size() {
-        return new HalInteger(value.size());
+        return HalInteger.valueOf(value.size());
     }
 
     private static final Reference __append__ = new Reference(new Builtin("append!", new Params.Param("element")) {
@@ -80,9 +87,20 @@ public class HalArray extends HalEnumerable<List<HalObject>>
     private static final Reference __sum__ = new Reference(new Builtin("sum") {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            HalObject sum = new HalInteger(0);
+            HalObject sum = HalInteger.valueOf(0);
 
             HalArray i = (HalArray) instance;
+            ArrayStorage storage = i.getStorage();
+
+            if(storage.getKind() == ArrayStorage.Kind.INT && HalInteger.klass.hasInstanceBuiltin("__add__"))
+                return sumInts(storage.getInts(), storage.size());
+
+            if(storage.getKind() == ArrayStorage.Kind.FLOAT && storage.size() > 0
+                    && HalInteger.klass.hasInstanceBuiltin("__add__")
+                    && HalFloat.klass.hasInstanceBuiltin("__add__")
+                    && HalFloat.klass.hasInstanceBuiltin("__radd__"))
+                return sumFloats(storage.getFloats(), storage.size());
+
             for(HalObject element : i.value)
                 sum = sum.methodcall("__add__", element);
 
@@ -90,6 +108,36 @@ public class HalArray extends HalEnumerable<List<HalObject>>
         }
     });
     
+    /**
+     * Sums integers like Integer#__add__ does: once the sum overflows,
+     * the result is a long integer.
+     */
+    private static HalObject sumInts(int[] ints, int size) {
+        long sum = 0;
+        boolean overflow = false;
+
+        for(int k = 0; k < size; ++k) {
+            sum += ints[k];
+
+            if(sum != (int) sum)
+                overflow = true;
+        }
+
+        if(overflow)
+            return new HalLong(BigInteger.valueOf(sum));
+
+        return HalInteger.valueOf((int) sum);
+    }
+
+    private static HalObject sumFloats(double[] floats, int size) {
+        double sum = 0;
+
+        for(int k = 0; k < size; ++k)
+            sum += floats[k];
+
+        return new HalFloat(sum);
+    }
+
     private static final Reference __each__ = new Reference(new Builtin("each") {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
@@ -98,7 +146,7 @@ public class HalArray extends HalEnumerable<List<HalObject>>
 
             if(lambda.getArity() < 2) {
                 for (HalObject element : i.value) {
-                    last = lambda.call(instance, null, element);
+                    last = lambda.callBlock(instance, element);
 
                     if(lambda.isBreakRequested())
                         return last;
@@ -106,7 +154,7 @@ public class HalArray extends HalEnumerable<List<HalObject>>
             } else {
                 int index = 0;
                 for(HalObject element : i.value) {
-                    last = lambda.call(instance, null, new HalInteger(index), element);
+                    last = lambda.callBlock(instance, HalInteger.valueOf(index), element);
 
                     if(lambda.isBreakRequested())
                         return last;
@@ -124,12 +172,28 @@ public class HalArray extends HalEnumerable<List<HalObject>>
         public HalObject mcall(HalObject instance, final HalMethod lambda, Arguments args) {
             final HalObject en = instance.getKlass().newInstance(instance.getKlass());
 
+            // Without redefinitions, the elements are filtered directly
+            if(instance.hasBuiltin("__each__") && en.hasBuiltin("__append!__")) {
+                HalArray result = (HalArray) en;
+
+                for(HalObject element : ((HalArray) instance).value) {
+                    if(lambda.callBlock(null, element).toBoolean())
+                        result.value.add(element);
+                }
+
+                return en;
+            }
+
             instance.methodcall_lambda("__each__", new InternalLambda(new Params.Param("x")) {
                 public HalObject mcall(HalObject instance, HalMethod l, Arguments args) {
-                    HalObject ret = lambda.call(null, null, args.get("x"));
+                    return callBlock(instance, args.get("x"));
+                }
+
+                public HalObject callBlock(HalObject instance, HalObject x) {
+                    HalObject ret = lambda.callBlock(null, x);
 
                     if(ret.toBoolean())
-                        en.methodcall("__append!__", args.get("x"));
+                        en.methodcall("__append!__", x);
 
                     return ret;
                 }
@@ -151,6 +215,10 @@ public class HalArray extends HalEnumerable<List<HalObject>>
                 public HalObject call(HalObject i, HalMethod l, Arguments args) {
                     return result.methodcall("__append!__", args);
                 }
+
+                public HalObject callBlock(HalObject i, HalObject x) {
+                    return result.methodcall("__append!__", x);
+                }
             });
 
             return result;
@@ -160,7 +228,19 @@ public class HalArray extends HalEnumerable<List<HalObject>>
     private static final Reference __sort__ = new Reference(new Builtin("sort!") {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            Collections.sort(((HalArray)instance).value);
+            ArrayStorage storage = ((HalArray) instance).getStorage();
+            HalClass numbers = null;
+
+            switch(storage.getKind()) {
+                case INT: numbers = HalInteger.klass; break;
+                case FLOAT: numbers = HalFloat.klass; break;
+            }
+
+            // Numbers are compared by value unless the comparisons are redefined
+            if(numbers != null && numbers.hasInstanceBuiltin("__lt__") && numbers.hasInstanceBuiltin("__eq__"))
+                storage.sortUnboxed();
+            else
+                Collections.sort(storage);
 
             return instance;
         }
@@ -171,17 +251,17 @@ public class HalArray extends HalEnumerable<List<HalObject>>
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
             HalArray array = (HalArray) instance;
-            String result = "";
+            StringBuilder result = new StringBuilder();
             HalString separator = (HalString) args.get("separator");
 
             for(int i = 0; i < array.value.size(); ++i) {
                 if(i > 0)
-                    result += separator.value;
+                    result.append(separator.getValue());
 
-                result += array.value.get(i).toString();
+                result.append(array.value.get(i).toString());
             }
 
-            return new HalString(result);
+            return new HalString(result.toString());
         }
     });
 
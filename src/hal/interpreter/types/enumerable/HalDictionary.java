@@ -23,17 +23,17 @@ public class HalDictionary extends HalEnumerable<HashMap<HalObject, HalObject>>
     }
 
     public HalString str() {
-        String s = "";
+        StringBuilder s = new StringBuilder("{");
         boolean first = true;
 
         for(HalObject key : keys) {
             if(first) first = false;
-            else s += ", ";
+            else s.append(", ");
 
-            s += key.methodcall("__repr__") + " => " + value.get(key).methodcall("__repr__");
+            s.append(key.methodcall("__repr__")).append(" => ").append(value.get(key).methodcall("__repr__"));
         }
 
-        return new HalString("{" + s + "}");
+        return new HalString(s.append('}').toString());
     }
 
     public HalObject getitem(HalObject index) {
@@ -54,7 +54,7 @@ public class HalDictionary extends HalEnumerable<HashMap<HalObject, HalObject>>
     }
 
     public HalInteger size() {
-        return new HalInteger(value.size());
+        return HalInteger.valueOf(value.size());
     }
     
     public HalArray keys() {
@@ -98,7 +98,7 @@ public class HalDictionary extends HalEnumerable<HashMap<HalObject, HalObject>>
             HalDictionary d = (HalDictionary) instance;
 
             for(HalObject key : d.keys) {
-                last = lambda.call(instance, null, key, d.value.get(key));
+                last = lambda.callBlock(instance, key, d.value.get(key));
             }
             
             return last;
@@ -108,7 +108,7 @@ public class HalDictionary extends HalEnumerable<HashMap<HalObject, HalObject>>
     private static final Reference __has_key__ = new Reference(new Builtin("has_key?", new Params.Param("key")) {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            return new HalBoolean(((HalDictionary)instance).value.containsKey(args.get("key")));
+            return HalBoolean.valueOf(((HalDictionary)instance).value.containsKey(args.get("key")));
         }
     });
     
@@ -24,7 +24,7 @@ public abstract class HalEnumerable<T> extends HalObject<T>
     public abstract HalInteger size();
 
     public HalBoolean bool() {
-        return new HalBoolean(size().value != 0);
+        return HalBoolean.valueOf(size().value != 0);
     }
 
     private static final Reference __getitem__ = new Reference(new Builtin("getitem", new Params.Param("key")) {
@@ -63,7 +63,7 @@ public abstract class HalEnumerable<T> extends HalObject<T>
     private static final Reference __empty_ = new Reference(new Builtin("empty?") {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            return new HalBoolean(((HalEnumerable)instance).size().value == 0);
+            return HalBoolean.valueOf(((HalEnumerable)instance).size().value == 0);
         }
     });
 
@@ -73,11 +73,24 @@ public abstract class HalEnumerable<T> extends HalObject<T>
             final HalArray n = new HalArray();
             final HalMethod f = lambda;
 
+            // Without redefinitions, the elements of an array are mapped directly
+            if(instance instanceof HalArray && instance.hasBuiltin("__each__") && n.hasBuiltin("__append!__")) {
+                for(HalObject element : ((HalArray) instance).value)
+                    n.value.add(f.callBlock(n, element));
+
+                return n;
+            }
+
             instance.methodcall_lambda("__each__", new InternalLambda(new Params.Param("x")) {
                 @Override
                 public HalObject call(HalObject instance, HalMethod lambda, Arguments args) {
                     return n.methodcall("__append!__", f.call(n, null, args));
                 }
+
+                @Override
+                public HalObject callBlock(HalObject instance, HalObject x) {
+                    return n.methodcall("__append!__", f.callBlock(n, x));
+                }
             });
 
             return n;
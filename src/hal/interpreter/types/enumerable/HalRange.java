@@ -52,7 +52,7 @@ public class HalRange extends HalEnumerable<Range>
             throw new KeyException(index.toString());
         }
 
-        return new HalInteger(item);
+        return HalInteger.valueOf(item);
     }
 
     public HalInteger size() {
@@ -67,7 +67,7 @@ public class HalRange extends HalEnumerable<Range>
             size = 0;
         }
 
-        return new HalInteger(size);
+        return HalInteger.valueOf(size);
     }
     
     private static final Reference __each__ = new Reference(new Builtin("each") {
@@ -80,7 +80,7 @@ public class HalRange extends HalEnumerable<Range>
 
             if(lambda.getArity() < 2) {
                 for (int i = range.value.start; i < end; i += range.value.step) {
-                    last = lambda.call(range, null, new HalInteger(i));
+                    last = lambda.callBlock(range, HalInteger.valueOf(i));
 
                     if(lambda.isBreakRequested())
                         return last;
@@ -88,7 +88,7 @@ public class HalRange extends HalEnumerable<Range>
             } else {
                 int index = 0;
                 for(int i = range.value.start; i < end; i += range.value.step) {
-                    last = lambda.call(range, null, new HalInteger(index), new HalInteger(i));
+                    last = lambda.callBlock(range, HalInteger.valueOf(index), HalInteger.valueOf(i));
 
                     if(lambda.isBreakRequested())
                         return last;
@@ -104,7 +104,7 @@ public class HalRange extends HalEnumerable<Range>
     private static final Reference __init__ = new Reference(new Builtin("init",
         new Params.Param("start"),
         new Params.Param("end"),
-        new Params.Keyword("include", new HalBoolean(false))) {
+        new Params.Keyword("include", HalBoolean.FALSE)) {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
             ((HalRange) instance).init(args.get("start"), args.get("end"), args.get("include"));
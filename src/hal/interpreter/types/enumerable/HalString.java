@@ -16,6 +16,19 @@ import java.util.regex.Pattern;
 
 public class HalString extends HalEnumerable<String>
 {
+    /** Length from which the result of a concatenation is kept in a buffer */
+    private static final int BUFFERED_LENGTH = 64;
+
+    /**
+     * Buffer of a string built by concatenation (null if none). The string
+     * is the first length chars of the buffer, and its value is only
+     * extracted when it is read with getValue (the field is null until
+     * then). Concatenating to the last string of a
+     * buffer appends to the buffer, so s = s + x in a loop copies every
+     * piece once instead of copying the whole string every time.
+     */
+    private StringBuilder buffer;
+    private int length;
 
     public HalString(Character c) {
         value = String.valueOf(c);
@@ -25,12 +38,61 @@ public class HalString extends HalEnumerable<String>
         value = s;
     }
 
+    /** Creates the string with the current contents of a buffer. */
+    private HalString(StringBuilder b) {
+        buffer = b;
+        length = b.length();
+    }
+
+    @Override
+    protected boolean hasLazyRecord() { return true; }
+
+    public String getValue() {
+        String v = value;
+
+        if(v == null) {
+            synchronized(buffer) {
+                v = buffer.substring(0, length);
+            }
+
+            value = v;
+        }
+
+        return v;
+    }
+
     public String toString(){
-        return value;
+        return getValue();
     }
 
     public HalString repr() {
-        return new HalString("'" + value + "'");
+        return new HalString("'" + getValue() + "'");
+    }
+
+    /**
+     * Concatenates a string. The result is kept in a buffer when it is
+     * long: if this string is the last one of its buffer, the string is
+     * appended to it, otherwise a new buffer is started.
+     */
+    public HalString concat(HalString x) {
+        String tail = x.getValue();
+        StringBuilder b = buffer;
+
+        if(b != null) {
+            synchronized(b) {
+                if(b.length() == length)
+                    return new HalString(b.append(tail));
+            }
+        }
+
+        String head = getValue();
+        int n = head.length() + tail.length();
+
+        if(n < BUFFERED_LENGTH)
+            return new HalString(head + tail);
+
+        b = new StringBuilder(n * 2);
+        return new HalString(b.append(head).append(tail));
     }
 
     public HalString str() {
@@ -40,20 +102,20 @@ public class HalString extends HalEnumerable<String>
     public HalString getitem(HalObject index) {
         HalInteger i = (HalInteger) index;
 
-        return new HalString(value.substring(i.value, i.value+1));
+        return new HalString(getValue().substring(i.value, i.value+1));
     }
 
     public HalInteger size() {
-        return new HalInteger(value.length());
+        return HalInteger.valueOf(value == null ? length : value.length());
     }
     
     private static final Reference __each__ = new Reference(new Builtin("each") {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
             HalObject last = HalNone.NONE;
-            HalString s = (HalString) instance;
-            for (int i=0; i < s.value.length(); i++) {
-                last = lambda.call(instance, null, new HalString(s.value.charAt(i)));
+            String s = ((HalString) instance).getValue();
+            for (int i=0; i < s.length(); i++) {
+                last = lambda.callBlock(instance, new HalString(s.charAt(i)));
             }
             return last;
         }
@@ -62,7 +124,7 @@ public class HalString extends HalEnumerable<String>
     private static final Reference __add__ = new Reference(new Builtin("add", new Params.Param("x")) {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            return new HalString(((HalString)instance).value + ((HalString)args.get("x")).value);
+            return ((HalString)instance).concat((HalString)args.get("x"));
         }
     });
 
@@ -80,9 +142,9 @@ public class HalString extends HalEnumerable<String>
                 for(int i = 0; i < objects.length; ++i)
                     objects[i] = ary.value.get(i).toFormat();
 
-                s = String.format(Locale.US, ((HalString) instance).value, objects);
+                s = String.format(Locale.US, ((HalString) instance).getValue(), objects);
             } else {
-                s = String.format(Locale.US, ((HalString) instance).value, x.toFormat());
+                s = String.format(Locale.US, ((HalString) instance).getValue(), x.toFormat());
             }
 
             return new HalString(s);
@@ -95,7 +157,7 @@ public class HalString extends HalEnumerable<String>
     {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            String s = ((HalString)instance).value.replaceAll(
+            String s = ((HalString)instance).getValue().replaceAll(
                     args.get("pattern").toString(),
                     args.get("replace").toString());
 
@@ -107,8 +169,8 @@ public class HalString extends HalEnumerable<String>
     {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            String pattern = Pattern.quote(((HalString)args.get("str")).value);
-            String value = ((HalString)instance).value;
+            String pattern = Pattern.quote(((HalString)args.get("str")).getValue());
+            String value = ((HalString)instance).getValue();
 
             return new HalString(value.replaceAll("(^["+pattern+"]+)|(["+pattern+"]+$)", ""));
         }
@@ -118,7 +180,7 @@ public class HalString extends HalEnumerable<String>
     {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            String s = ((HalString)instance).value;
+            String s = ((HalString)instance).getValue();
             return new HalString(s.toLowerCase());
         }
     });
@@ -127,7 +189,7 @@ public class HalString extends HalEnumerable<String>
     {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            String s = ((HalString)instance).value;
+            String s = ((HalString)instance).getValue();
             return new HalString(s.toUpperCase());
         }
     });
@@ -136,7 +198,7 @@ public class HalString extends HalEnumerable<String>
     {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            String s = ((HalString)instance).value;
+            String s = ((HalString)instance).getValue();
             return new HalString(Character.toUpperCase(s.charAt(0)) + s.substring(1));
         }
     });
@@ -145,7 +207,7 @@ public class HalString extends HalEnumerable<String>
     {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            return new HalInteger(Integer.valueOf(((HalString) instance).value));
+            return HalInteger.valueOf(Integer.valueOf(((HalString) instance).getValue()));
         }
     });
     
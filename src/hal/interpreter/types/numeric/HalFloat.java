@@ -69,12 +69,12 @@ public class HalFloat extends HalNumber<Double>
 
     @Override
     public HalBoolean eq(HalNumber n) {
-        return new HalBoolean(toFloat().equals(n.toFloat()));
+        return HalBoolean.valueOf(toFloat().equals(n.toFloat()));
     }
 
     @Override
     public HalBoolean lt(HalNumber n) {
-        return new HalBoolean(toFloat() < n.toFloat());
+        return HalBoolean.valueOf(toFloat() < n.toFloat());
     }
 
     @Override
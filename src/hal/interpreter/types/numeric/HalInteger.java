@@ -5,6 +5,7 @@ import hal.interpreter.core.Arguments;
 import hal.interpreter.core.Builtin;
 import hal.interpreter.core.data.Rational;
 import hal.interpreter.exceptions.InvalidArgumentsException;
+import hal.interpreter.exceptions.TypeException;
 import hal.interpreter.types.HalBoolean;
 import hal.interpreter.types.HalClass;
 import hal.interpreter.types.HalMethod;
@@ -14,6 +15,30 @@ import java.math.BigInteger;
 
 public class HalInteger extends HalNumber<Integer>
 {
+    /** Range of the integers that are preallocated */
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1024;
+
+    private static final HalInteger[] cache = new HalInteger[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for(int i = 0; i < cache.length; ++i)
+            cache[i] = new HalInteger(CACHE_LOW + i);
+    }
+
+    /**
+     * Gets an integer object. Small integers are shared, so no object
+     * is allocated for them.
+     * @param i The value of the integer
+     * @return The integer object
+     */
+    public static HalInteger valueOf(int i) {
+        if(i >= CACHE_LOW && i <= CACHE_HIGH)
+            return cache[i - CACHE_LOW];
+
+        return new HalInteger(i);
+    }
+
     public HalInteger(Integer i) {
         super(i);
     }
@@ -26,6 +51,20 @@ public class HalInteger extends HalNumber<Integer>
         super((int) d);
     }
 
+    /**
+     * Integers are immutable: small integers are shared, so nothing can
+     * be defined in their records.
+     */
+    @Override
+    protected void initRecord() {
+        throw new TypeException("Integer " + value + " can not be modified");
+    }
+
+    @Override
+    public Integer toInteger() {
+        return value;
+    }
+
     @Override
     public boolean isZero() {
         return value == 0;
@@ -33,7 +72,7 @@ public class HalInteger extends HalNumber<Integer>
 
     @Override
     public HalNumber neg() {
-        return new HalInteger(-value);
+        return valueOf(-value);
     }
 
     @Override
@@ -43,23 +82,29 @@ public class HalInteger extends HalNumber<Integer>
 
     @Override
     public HalNumber add(HalNumber n) {
-        if (addOverflows(toInteger(), n.toInteger()))
-            return new HalLong(toInteger()).add(new HalLong(n.toInteger()));
-        return new HalInteger(toInteger() + n.toInteger());
+        int a = value, b = n.toInteger();
+
+        if (addOverflows(a, b))
+            return new HalLong(a).add(new HalLong(b));
+        return valueOf(a + b);
     }
 
     @Override
     public HalNumber sub(HalNumber n) {
-        if (subOverflows(toInteger(), n.toInteger()))
-            return new HalLong(toInteger()).sub(new HalLong(n.toInteger()));
-        return new HalInteger(toInteger() - n.toInteger());
+        int a = value, b = n.toInteger();
+
+        if (subOverflows(a, b))
+            return new HalLong(a).sub(new HalLong(b));
+        return valueOf(a - b);
     }
 
     @Override
     public HalNumber mul(HalNumber n) {
-        if (mulOverflows(toInteger(), n.toInteger()))
-            return new HalLong(toInteger()).mul(new HalLong(n.toInteger()));
-        return new HalInteger(toInteger() * n.toInteger());
+        int a = value, b = n.toInteger();
+
+        if (mulOverflows(a, b))
+            return new HalLong(a).mul(new HalLong(b));
+        return valueOf(a * b);
     }
 
     @Override
@@ -70,13 +115,13 @@ public class HalInteger extends HalNumber<Integer>
 
     public static HalNumber power(int a, int n) {
         // Special cases
-        if(a == 1) return new HalInteger(1);
-        if(a == -1) return (n%2 == 0)? new HalInteger(1): new HalInteger(-1);
+        if(a == 1) return valueOf(1);
+        if(a == -1) return (n%2 == 0)? valueOf(1): valueOf(-1);
         if(a == 0 && n == 0) throw new InvalidArgumentsException();
 
         // Base cases
-        if (n == 0) return new HalInteger(1);
-        if (n == 1) return new HalInteger(a);
+        if (n == 0) return valueOf(1);
+        if (n == 1) return valueOf(a);
 
         int result = 1;
         boolean overflow = false;
@@ -97,7 +142,7 @@ public class HalInteger extends HalNumber<Integer>
         if (overflow)
             return HalLong.LorI(BigInteger.valueOf(a).pow(n).multiply(BigInteger.valueOf(result)));
 
-        return new HalInteger(result);
+        return valueOf(result);
     }
 
     @Override
@@ -109,21 +154,27 @@ public class HalInteger extends HalNumber<Integer>
     public HalNumber mod(HalNumber n) {
         int r = toInteger() % n.toInteger();
         // Positive modulus
-        return new HalInteger((r < 0)? r + n.toInteger(): r);
+        return valueOf((r < 0)? r + n.toInteger(): r);
     }
 
     @Override
     public HalNumber ddiv(HalNumber n) {
-        return new HalInteger(toInteger() / n.toInteger());
+        return valueOf(value / n.toInteger());
     }
 
     @Override
     public HalBoolean eq(HalNumber n) {
+        if (n instanceof HalInteger)
+            return HalBoolean.valueOf(value.intValue() == ((HalInteger) n).value.intValue());
+
         return ((HalBoolean)(new HalRational(toInteger())).methodcall("__eq__", n));
     }
 
     @Override
     public HalBoolean lt(HalNumber n) {
+        if (n instanceof HalInteger)
+            return HalBoolean.valueOf(value < ((HalInteger) n).value);
+
         return ((HalBoolean)(new HalRational(toInteger())).methodcall("__lt__", n));
     }
 
@@ -168,7 +219,7 @@ public class HalInteger extends HalNumber<Integer>
                     lambda.call(instance, null);
             } else {
                 for (int i = 0; i < value; ++i)
-                    lambda.call(instance, null, new HalInteger(i));
+                    lambda.callBlock(instance, valueOf(i));
             }
 
             return instance;
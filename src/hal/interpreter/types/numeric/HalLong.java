@@ -25,7 +25,7 @@ public class HalLong extends HalNumber<BigInteger> {
 
     public static HalNumber LorI(BigInteger bi) {
         if (bi.bitLength() < 32)
-            return new HalInteger(bi.intValue());
+            return HalInteger.valueOf(bi.intValue());
         return new HalLong(bi);
     }
 
@@ -88,13 +88,13 @@ public class HalLong extends HalNumber<BigInteger> {
     @Override
     public HalBoolean eq(HalNumber n) {
         BigInteger bi = new BigInteger(n.toString());
-        return new HalBoolean(value.equals(bi));
+        return HalBoolean.valueOf(value.equals(bi));
     }
 
     @Override
     public HalBoolean lt(HalNumber n) {
         BigInteger bi = new BigInteger(n.toString());
-        return new HalBoolean(value.compareTo(bi) < 0);
+        return HalBoolean.valueOf(value.compareTo(bi) < 0);
     }
 
     @Override
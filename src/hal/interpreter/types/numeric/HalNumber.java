@@ -25,7 +25,9 @@ public abstract class HalNumber<T extends Number> extends HalObject<T> {
     public Double doubleValue() { return value.doubleValue(); }
     public Object toFormat() { return value; }
 
-    public HalBoolean bool() { return new HalBoolean(!isZero()); }
+    protected boolean hasLazyRecord() { return true; }
+
+    public HalBoolean bool() { return HalBoolean.valueOf(!isZero()); }
 
     public HalNumber pos() { return this; }
     public abstract HalNumber neg();
@@ -59,7 +61,7 @@ public abstract class HalNumber<T extends Number> extends HalObject<T> {
     private static final Reference __int__ = new Reference(new Builtin("int") {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            return new HalInteger(((HalNumber) instance).intValue());
+            return HalInteger.valueOf(((HalNumber) instance).intValue());
         }
     });
 
@@ -94,6 +96,14 @@ public abstract class HalNumber<T extends Number> extends HalObject<T> {
 
     // Binary left
     private static final Reference __add__ = new Reference(new Builtin("add", new Params.Param("x")) {
+        @Override
+        public HalObject callBinary(HalObject instance, HalObject x) {
+            if(instance instanceof HalInteger && x instanceof HalInteger)
+                return ((HalInteger) instance).add((HalInteger) x);
+
+            return super.callBinary(instance, x);
+        }
+
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
             HalNumber i = ((HalNumber) instance);
@@ -107,6 +117,14 @@ public abstract class HalNumber<T extends Number> extends HalObject<T> {
     });
 
     private static final Reference __sub__ = new Reference(new Builtin("sub", new Params.Param("x")) {
+        @Override
+        public HalObject callBinary(HalObject instance, HalObject x) {
+            if(instance instanceof HalInteger && x instanceof HalInteger)
+                return ((HalInteger) instance).sub((HalInteger) x);
+
+            return super.callBinary(instance, x);
+        }
+
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
             HalNumber i = ((HalNumber) instance);
@@ -120,6 +138,14 @@ public abstract class HalNumber<T extends Number> extends HalObject<T> {
     });
 
     private static final Reference __mul__ = new Reference(new Builtin("mul", new Params.Param("x")) {
+        @Override
+        public HalObject callBinary(HalObject instance, HalObject x) {
+            if(instance instanceof HalInteger && x instanceof HalInteger)
+                return ((HalInteger) instance).mul((HalInteger) x);
+
+            return super.callBinary(instance, x);
+        }
+
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
             HalNumber i = ((HalNumber) instance);
@@ -265,6 +291,14 @@ public abstract class HalNumber<T extends Number> extends HalObject<T> {
     });
 
     private static final Reference __lt__ = new Reference(new Builtin("lt", new Params.Param("x")) {
+        @Override
+        public HalObject callBinary(HalObject instance, HalObject x) {
+            if(instance instanceof HalInteger && x instanceof HalInteger)
+                return ((HalInteger) instance).lt((HalInteger) x);
+
+            return super.callBinary(instance, x);
+        }
+
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
             return ((HalNumber) instance).lt(((HalNumber) args.get("x")));
@@ -272,6 +306,14 @@ public abstract class HalNumber<T extends Number> extends HalObject<T> {
     });
 
     private static final Reference __eq__ = new Reference(new Builtin("eq", new Params.Param("x")) {
+        @Override
+        public HalObject callBinary(HalObject instance, HalObject x) {
+            if(instance instanceof HalInteger && x instanceof HalInteger)
+                return ((HalInteger) instance).eq((HalInteger) x);
+
+            return super.callBinary(instance, x);
+        }
+
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
             HalObject x = args.get("x");
@@ -279,7 +321,7 @@ public abstract class HalNumber<T extends Number> extends HalObject<T> {
             if(x instanceof HalNumber)
                 return ((HalNumber) instance).eq(((HalNumber) args.get("x")));
             else
-                return new HalBoolean(false);
+                return HalBoolean.FALSE;
         }
     });
 
@@ -25,7 +25,7 @@ public class HalRational extends HalNumber<Rational>
 
     public static HalNumber RorI(Rational r) {
         if (r.isInt())
-            return new HalInteger(r.getNum());
+            return HalInteger.valueOf(r.getNum());
         return new HalRational(r);
     }
 
@@ -113,28 +113,28 @@ public class HalRational extends HalNumber<Rational>
     public HalBoolean eq(HalNumber n) {
         if (canCoerce(n)) {
             Rational r = toR(n);
-            return new HalBoolean(value.getNum() == r.getNum() && value.getDen() == r.getDen());
+            return HalBoolean.valueOf(value.getNum() == r.getNum() && value.getDen() == r.getDen());
         }
         else
-            return new HalBoolean(value.doubleValue() == n.toFloat());
+            return HalBoolean.valueOf(value.doubleValue() == n.toFloat());
     }
 
     @Override
     public HalBoolean lt(HalNumber n) {
-        return new HalBoolean(toFloat() < n.toFloat());
+        return HalBoolean.valueOf(toFloat() < n.toFloat());
     }
 
     private static final Reference den = new Reference(new Builtin("den") {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            return new HalInteger(((Rational)instance.value).getDen());
+            return HalInteger.valueOf(((Rational)instance.value).getDen());
         }
     });
 
     private static final Reference num = new Reference(new Builtin("num") {
         @Override
         public HalObject mcall(HalObject instance, HalMethod lambda, Arguments args) {
-            return new HalInteger(((Rational)instance.value).getNum());
+            return HalInteger.valueOf(((Rational)instance.value).getNum());
         }
     });
 
@@ -0,0 +1,108 @@
+package hal.test;
+
+import hal.interpreter.Interpreter;
+import hal.interpreter.Parser;
+import hal.interpreter.types.HalModule;
+import hal.interpreter.types.HalObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs several interpreters at the same time in different threads. Half
+ * of them reopen builtin classes and define methods in a symbol, and the
+ * other half must not see the changes. Exits with status 1 if any
+ * interpreter gives a wrong result.
+ */
+public class IsolateTest
+{
+    private static final int THREADS = 8;
+    private static final int RUNS = 20;
+    /** Methods defined in Object by every run, enough to grow its table of names */
+    private static final int METHODS = 40;
+
+    private static final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+
+    /** Program that redefines the concatenation of strings and adds methods to Object and Kernel */
+    private static String reopening() {
+        StringBuilder source = new StringBuilder();
+        source.append("class String:\n    def __add__ x:\n        return \"changed\"\n");
+        source.append("class Kernel:\n    def helper:\n        return 1\n");
+        source.append("class Object:\n");
+
+        for(int i = 0; i < METHODS; ++i)
+            source.append("    def method").append(i).append(":\n        return ").append(i).append("\n");
+
+        source.append("x = 1.method").append(METHODS - 1).append("() + helper()\n");
+        source.append("\"a\" + \"b\" + x.str\n");
+        return source.toString();
+    }
+
+    private static final String PLAIN = "\"a\" + \"b\"\n";
+
+    private static final String CALLING = "helper()\n";
+
+    /** Program that defines a method in a symbol, which is shared by all the interpreters */
+    private static final String TAGGING = "s = :shared\nclass << s:\n    def tag:\n        return \"tagged\"\n"
+            + ":shared.tag()\n";
+
+    private static final String TAGGED = ":shared.tag()\n";
+
+    private static HalObject run(String name, String source) {
+        HalModule module = new HalModule(name, null, name);
+        Interpreter interpreter = new Interpreter(new Parser(null, false), module, null);
+        return interpreter.run(source);
+    }
+
+    private static void check(String name, String source, String expected) {
+        String result;
+
+        try {
+            result = String.valueOf(run(name, source));
+        } catch(RuntimeException e) {
+            result = e.getClass().getSimpleName();
+        }
+
+        if(!result.equals(expected))
+            errors.add(name + ": expected " + expected + ", got " + result);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final String reopening = reopening();
+        Thread[] threads = new Thread[THREADS];
+
+        for(int t = 0; t < THREADS; ++t) {
+            final int id = t;
+
+            threads[t] = new Thread() {
+                public void run() {
+                    for(int i = 0; i < RUNS; ++i) {
+                        if(id % 2 == 0) {
+                            check("reopening", reopening, "changed");
+                            check("tagging", TAGGING, "tagged");
+                        } else {
+                            check("plain", PLAIN, "ab");
+                            check("calling", CALLING, "NameException");
+                            check("tagged", TAGGED, "TypeException");
+                        }
+                    }
+                }
+            };
+        }
+
+        for(Thread thread : threads)
+            thread.start();
+
+        for(Thread thread : threads)
+            thread.join();
+
+        for(String error : errors)
+            System.err.println(error);
+
+        if(!errors.isEmpty())
+            System.exit(1);
+
+        System.out.println("IsolateTest: " + THREADS * RUNS + " runs in " + THREADS + " threads");
+    }
+}